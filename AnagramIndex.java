@@ -0,0 +1,101 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * An index of a list of words by their letters, used to find anagrams. Words
+ * are grouped by their signature, which is the string of their letters in
+ * sorted order; for example, {@code "east"}, {@code "eats"}, {@code "seat"}
+ * and {@code "teas"} all have the signature {@code "aest"}. The words that can
+ * be formed from a multiset of letters, which need not use all of them, are
+ * found by walking a {@code WordTrie} instead (see
+ * {@link WordTrie#wordsFormableFrom(String)}).
+ *
+ * <p>
+ * Only words made up of the letters {@code a} to {@code z} are indexed.
+ */
+public class AnagramIndex {
+
+	private final String[] signatures;
+	private final int[] groupStart;
+	private final String[] words;
+
+	/**
+	 * Initializes an index of the specified words.
+	 *
+	 * @param words the words to index
+	 */
+	public AnagramIndex(List<String> words) {
+		Map<String, List<String>> groups = new HashMap<String, List<String>>();
+		for (String w : words) {
+			String sig = signature(w);
+			if (sig != null) {
+				groups.computeIfAbsent(sig, k -> new ArrayList<String>(1)).add(w);
+			}
+		}
+		this.signatures = groups.keySet().toArray(new String[0]);
+		Arrays.sort(this.signatures);
+		this.groupStart = new int[this.signatures.length + 1];
+		List<String> grouped = new ArrayList<String>();
+		for (int g = 0; g < this.signatures.length; g++) {
+			this.groupStart[g] = grouped.size();
+			grouped.addAll(groups.get(this.signatures[g]));
+		}
+		this.groupStart[this.signatures.length] = grouped.size();
+		this.words = grouped.toArray(new String[0]);
+	}
+
+	/**
+	 * Returns the signature of a word, which is its letters in sorted order.
+	 *
+	 * @param word a word
+	 * @return the signature of the word, or null if the word has a character other
+	 *         than {@code a} to {@code z}
+	 */
+	public static String signature(String word) {
+		char[] letters = word.toCharArray();
+		for (char c : letters) {
+			if (c < 'a' || c > 'z') {
+				return null;
+			}
+		}
+		Arrays.sort(letters);
+		return new String(letters);
+	}
+
+	/**
+	 * Returns the indexed words that are anagrams of the specified letters, in
+	 * other words, the words that use exactly the same letters the same number of
+	 * times.
+	 *
+	 * @param letters a string of lower-case letters
+	 * @return a sorted set of the anagrams of the letters
+	 */
+	public SortedSet<String> anagramsOf(String letters) {
+		SortedSet<String> result = new TreeSet<String>();
+		String sig = signature(letters);
+		if (sig != null) {
+			int g = Arrays.binarySearch(this.signatures, sig);
+			if (g >= 0) {
+				this.addGroup(g, result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Adds the words of a group to a set.
+	 *
+	 * @param g      the index of the group
+	 * @param result the set to add the words to
+	 */
+	private void addGroup(int g, SortedSet<String> result) {
+		for (int i = this.groupStart[g]; i < this.groupStart[g + 1]; i++) {
+			result.add(this.words[i]);
+		}
+	}
+}
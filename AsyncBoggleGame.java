@@ -0,0 +1,92 @@
+import java.util.List;
+import java.util.SortedSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * An asynchronous front end for a {@code BoggleGame}. Every call is run on a
+ * dedicated model thread and returns a {@code CompletableFuture} for its
+ * result, so that callers such as the Swing event thread never wait for a
+ * dictionary lookup.
+ *
+ * <p>
+ * The model thread runs calls one at a time in the order they were made. This
+ * keeps the game (which is not thread-safe) consistent, and it means that a
+ * word submitted before a roll is always checked against the board it was
+ * spelled on. A future that is cancelled before its turn comes up is skipped
+ * without doing any work.
+ */
+public class AsyncBoggleGame {
+
+	private final BoggleGame game;
+	private final ExecutorService executor;
+
+	/**
+	 * Initializes an asynchronous front end for the specified game. The model
+	 * thread is a daemon thread so that it does not keep the application alive.
+	 *
+	 * @param game the game to run calls on
+	 */
+	public AsyncBoggleGame(BoggleGame game) {
+		this.game = game;
+		this.executor = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "boggle-model");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * Returns the game that calls are run on.
+	 *
+	 * @return the game that calls are run on
+	 */
+	public BoggleGame getGame() {
+		return this.game;
+	}
+
+	/**
+	 * Shuffles and rolls the dice on the model thread.
+	 *
+	 * @return a future for the dice in their new state
+	 * @see BoggleGame#shuffleAndRoll()
+	 */
+	public CompletableFuture<List<BoggleDie>> shuffleAndRoll() {
+		return CompletableFuture.supplyAsync(() -> {
+			this.game.shuffleAndRoll();
+			return this.game.getDice();
+		}, this.executor);
+	}
+
+	/**
+	 * Checks on the model thread if the specified string is a legal Boggle word.
+	 *
+	 * @param s a string
+	 * @return a future for true if the string is a legal Boggle word, and false
+	 *         otherwise
+	 * @see BoggleGame#isABoggleWord(String)
+	 */
+	public CompletableFuture<Boolean> isABoggleWord(String s) {
+		return CompletableFuture.supplyAsync(() -> this.game.isABoggleWord(s), this.executor);
+	}
+
+	/**
+	 * Finds on the model thread the words in the dictionary that are similar to
+	 * the specified word.
+	 *
+	 * @param word a word
+	 * @return a future for the sorted set of similar words
+	 * @see BoggleGame#wordsSimilarTo(String)
+	 */
+	public CompletableFuture<SortedSet<String>> wordsSimilarTo(String word) {
+		return CompletableFuture.supplyAsync(() -> this.game.wordsSimilarTo(word), this.executor);
+	}
+
+	/**
+	 * Stops the model thread after the calls already made have run.
+	 */
+	public void shutdown() {
+		this.executor.shutdown();
+	}
+}
@@ -0,0 +1,432 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * An offline search for high-scoring Boggle boards made from the 16 standard
+ * dice. A board is described by which die sits in each cell and which face of
+ * each die is showing.
+ *
+ * <p>
+ * The search runs several independent simulated annealing chains in parallel.
+ * Each step of a chain either swaps two dice or turns one die to another face,
+ * scores the new board with a {@code BoggleSolver}, and accepts the change if
+ * the score went up, or with a probability that shrinks as the chain cools if
+ * the score went down.
+ *
+ * <p>
+ * Every chain draws its random numbers from its own SplitMix64 generator,
+ * seeded from the search seed and the number of the chain, so a search always
+ * finds the same boards for the same seed no matter how the chains are
+ * scheduled. The state of every chain, including its generator, is written to a
+ * checkpoint file at regular intervals; a search started with the same
+ * settings and an existing checkpoint file continues from where the
+ * checkpoint left off and finds the same boards as an uninterrupted search.
+ */
+public class BoardOptimizer {
+
+	private static final double START_TEMPERATURE = 20.0;
+	private static final double END_TEMPERATURE = 0.2;
+
+	/**
+	 * The faces of the 16 standard dice.
+	 */
+	private static final String[][] DICE = new String[BoggleGame.NUMBER_OF_DICE][];
+
+	static {
+		for (int i = 0; i < DICE.length; i++) {
+			DICE[i] = BoggleGame.facesOfDie(i);
+		}
+	}
+
+	private final WordTrie trie;
+	private final long seed;
+	private final int chains;
+	private final long steps;
+	private final long checkpointInterval;
+	private final Path checkpoint;
+	private final Chain[] state;
+
+	/**
+	 * Initializes a search.
+	 *
+	 * @param trie               the words that count towards the score of a board
+	 * @param seed               the seed of the search
+	 * @param chains             the number of chains
+	 * @param steps              the number of steps taken by each chain
+	 * @param checkpointInterval the number of steps between checkpoints
+	 * @param checkpoint         the checkpoint file, or null for no checkpoints
+	 * @throws IllegalArgumentException if {@code chains}, {@code steps}, or
+	 *                                  {@code checkpointInterval} is not positive
+	 */
+	public BoardOptimizer(WordTrie trie, long seed, int chains, long steps, long checkpointInterval,
+			Path checkpoint) {
+		if (chains < 1 || steps < 1 || checkpointInterval < 1) {
+			throw new IllegalArgumentException("chains, steps and checkpoint interval must be positive");
+		}
+		this.trie = trie;
+		this.seed = seed;
+		this.chains = chains;
+		this.steps = steps;
+		this.checkpointInterval = checkpointInterval;
+		this.checkpoint = checkpoint;
+		this.state = new Chain[chains];
+	}
+
+	/**
+	 * The state of one annealing chain.
+	 */
+	private static class Chain {
+		final int id;
+		long step;
+		long rng;
+		final int[] dice;
+		final int[] faces;
+		int score;
+		final int[] bestDice;
+		final int[] bestFaces;
+		int bestScore;
+
+		Chain(int id) {
+			this.id = id;
+			this.dice = new int[BoggleBoard.CELLS];
+			this.faces = new int[BoggleBoard.CELLS];
+			this.bestDice = new int[BoggleBoard.CELLS];
+			this.bestFaces = new int[BoggleBoard.CELLS];
+		}
+
+		/**
+		 * Returns the next number from the SplitMix64 generator of the chain.
+		 */
+		long nextLong() {
+			long z = (this.rng += 0x9E3779B97F4A7C15L);
+			z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+			z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+			return z ^ (z >>> 31);
+		}
+
+		int nextInt(int bound) {
+			return (int) ((this.nextLong() >>> 33) % bound);
+		}
+
+		double nextDouble() {
+			return (this.nextLong() >>> 11) * 0x1.0p-53;
+		}
+
+		String line() {
+			StringBuilder b = new StringBuilder();
+			b.append(this.id).append(' ').append(this.step).append(' ').append(this.rng).append(' ')
+					.append(this.score).append(' ').append(this.bestScore);
+			for (int i = 0; i < BoggleBoard.CELLS; i++) {
+				b.append(' ').append(this.dice[i]).append(' ').append(this.faces[i]);
+			}
+			for (int i = 0; i < BoggleBoard.CELLS; i++) {
+				b.append(' ').append(this.bestDice[i]).append(' ').append(this.bestFaces[i]);
+			}
+			return b.toString();
+		}
+
+		static Chain parse(String line) {
+			String[] t = line.trim().split("\\s+");
+			if (t.length != 5 + 4 * BoggleBoard.CELLS) {
+				throw new IllegalArgumentException("malformed checkpoint line: " + line);
+			}
+			Chain c = new Chain(Integer.parseInt(t[0]));
+			c.step = Long.parseLong(t[1]);
+			c.rng = Long.parseLong(t[2]);
+			c.score = Integer.parseInt(t[3]);
+			c.bestScore = Integer.parseInt(t[4]);
+			for (int i = 0; i < BoggleBoard.CELLS; i++) {
+				c.dice[i] = Integer.parseInt(t[5 + 2 * i]);
+				c.faces[i] = Integer.parseInt(t[6 + 2 * i]);
+				c.bestDice[i] = Integer.parseInt(t[5 + 2 * BoggleBoard.CELLS + 2 * i]);
+				c.bestFaces[i] = Integer.parseInt(t[6 + 2 * BoggleBoard.CELLS + 2 * i]);
+			}
+			return c;
+		}
+	}
+
+	/**
+	 * A board found by the search and its score.
+	 */
+	public static class Result {
+		private final BoggleBoard board;
+		private final int score;
+
+		Result(BoggleBoard board, int score) {
+			this.board = board;
+			this.score = score;
+		}
+
+		/**
+		 * Returns the board.
+		 *
+		 * @return the board
+		 */
+		public BoggleBoard board() {
+			return this.board;
+		}
+
+		/**
+		 * Returns the score of the board.
+		 *
+		 * @return the score of the board
+		 */
+		public int score() {
+			return this.score;
+		}
+	}
+
+	/**
+	 * Returns the board described by the dice and faces in each cell.
+	 *
+	 * @param dice  the index of the die in each cell
+	 * @param faces the index of the face showing on each die
+	 * @return the board
+	 */
+	private static BoggleBoard board(int[] dice, int[] faces) {
+		String[] f = new String[BoggleBoard.CELLS];
+		for (int i = 0; i < BoggleBoard.CELLS; i++) {
+			f[i] = DICE[dice[i]][faces[i]];
+		}
+		return new BoggleBoard(f);
+	}
+
+	/**
+	 * Runs the search, continuing from the checkpoint file if there is one, and
+	 * returns the best board found by each chain, highest score first.
+	 *
+	 * @return the best board found by each chain
+	 * @throws UncheckedIOException if the checkpoint file cannot be read or written
+	 */
+	public List<Result> run() {
+		this.restore();
+		BoggleSolver solver = new BoggleSolver(this.trie);
+		for (int id = 0; id < this.chains; id++) {
+			if (this.state[id] == null) {
+				this.state[id] = this.start(id, solver);
+			}
+		}
+		IntStream.range(0, this.chains).parallel().forEach(this::anneal);
+		this.save();
+		List<Result> results = new ArrayList<Result>();
+		for (Chain c : this.state) {
+			results.add(new Result(board(c.bestDice, c.bestFaces), c.bestScore));
+		}
+		results.sort(Comparator.comparingInt(Result::score).reversed()
+				.thenComparing(r -> r.board().toString()));
+		return results;
+	}
+
+	/**
+	 * Returns a new chain starting from a random board.
+	 *
+	 * @param id     the number of the chain
+	 * @param solver the solver used to score the starting board
+	 * @return the new chain
+	 */
+	private Chain start(int id, BoggleSolver solver) {
+		Chain c = new Chain(id);
+		c.rng = this.seed * 0x9E3779B97F4A7C15L + id;
+		for (int i = 0; i < BoggleBoard.CELLS; i++) {
+			c.dice[i] = i;
+		}
+		for (int i = BoggleBoard.CELLS - 1; i >= 1; i--) {
+			int j = c.nextInt(i + 1);
+			int d = c.dice[i];
+			c.dice[i] = c.dice[j];
+			c.dice[j] = d;
+		}
+		for (int i = 0; i < BoggleBoard.CELLS; i++) {
+			c.faces[i] = c.nextInt(DICE[c.dice[i]].length);
+		}
+		c.score = solver.score(board(c.dice, c.faces));
+		c.bestScore = c.score;
+		System.arraycopy(c.dice, 0, c.bestDice, 0, BoggleBoard.CELLS);
+		System.arraycopy(c.faces, 0, c.bestFaces, 0, BoggleBoard.CELLS);
+		return c;
+	}
+
+	/**
+	 * Runs one chain until it has taken all of its steps. Each step holds the lock
+	 * of the chain so that a checkpoint never sees a step half done.
+	 *
+	 * @param id the number of the chain
+	 */
+	private void anneal(int id) {
+		Chain c = this.state[id];
+		BoggleSolver solver = new BoggleSolver(this.trie);
+		double cooling = Math.log(END_TEMPERATURE / START_TEMPERATURE) / this.steps;
+		while (true) {
+			boolean due;
+			synchronized (c) {
+				if (c.step >= this.steps) {
+					return;
+				}
+				this.step(c, solver, START_TEMPERATURE * Math.exp(cooling * c.step));
+				due = c.step % this.checkpointInterval == 0;
+			}
+			if (due) {
+				this.save();
+			}
+		}
+	}
+
+	/**
+	 * Takes one step of a chain: proposes a change to the board, then keeps or
+	 * undoes it.
+	 *
+	 * @param c           the chain
+	 * @param solver      the solver used to score the board
+	 * @param temperature the current temperature of the chain
+	 */
+	private void step(Chain c, BoggleSolver solver, double temperature) {
+		int i = c.nextInt(BoggleBoard.CELLS);
+		int j = c.nextInt(BoggleBoard.CELLS);
+		boolean swap = c.nextInt(2) == 0;
+		int oldFace = c.faces[i];
+		if (swap) {
+			swapCells(c, i, j);
+		} else {
+			c.faces[i] = c.nextInt(DICE[c.dice[i]].length);
+		}
+		int score = solver.score(board(c.dice, c.faces));
+		if (score >= c.score || c.nextDouble() < Math.exp((score - c.score) / temperature)) {
+			c.score = score;
+			if (score > c.bestScore) {
+				c.bestScore = score;
+				System.arraycopy(c.dice, 0, c.bestDice, 0, BoggleBoard.CELLS);
+				System.arraycopy(c.faces, 0, c.bestFaces, 0, BoggleBoard.CELLS);
+			}
+		} else if (swap) {
+			swapCells(c, i, j);
+		} else {
+			c.faces[i] = oldFace;
+		}
+		c.step++;
+	}
+
+	/**
+	 * Swaps the dice (and their faces) in two cells.
+	 */
+	private static void swapCells(Chain c, int i, int j) {
+		int d = c.dice[i];
+		c.dice[i] = c.dice[j];
+		c.dice[j] = d;
+		int f = c.faces[i];
+		c.faces[i] = c.faces[j];
+		c.faces[j] = f;
+	}
+
+	/**
+	 * The first line of a checkpoint file, which records the settings of the
+	 * search it belongs to.
+	 */
+	private String header() {
+		return "# seed " + this.seed + " chains " + this.chains + " steps " + this.steps;
+	}
+
+	/**
+	 * Loads the state of the chains from the checkpoint file, if there is one.
+	 *
+	 * @throws IllegalArgumentException if the checkpoint file belongs to a search
+	 *                                  with different settings
+	 */
+	private void restore() {
+		if (this.checkpoint == null || !Files.exists(this.checkpoint)) {
+			return;
+		}
+		try {
+			List<String> lines = Files.readAllLines(this.checkpoint, StandardCharsets.UTF_8);
+			if (lines.isEmpty() || !lines.get(0).equals(this.header())) {
+				throw new IllegalArgumentException(this.checkpoint + " belongs to a different search");
+			}
+			for (String line : lines.subList(1, lines.size())) {
+				Chain c = Chain.parse(line);
+				if (c.id < 0 || c.id >= this.chains) {
+					throw new IllegalArgumentException("malformed checkpoint line: " + line);
+				}
+				this.state[c.id] = c;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Writes the state of every chain that has started to the checkpoint file,
+	 * replacing it atomically so that an interrupted write never loses the
+	 * previous checkpoint. The state of each chain is copied while holding the
+	 * lock of the optimizer, but a chain may be a few steps further along than
+	 * the copy of another chain; each chain's line is consistent on its own.
+	 *
+	 * @throws UncheckedIOException if the checkpoint file cannot be written
+	 */
+	private synchronized void save() {
+		if (this.checkpoint == null) {
+			return;
+		}
+		List<String> lines = new ArrayList<String>();
+		lines.add(this.header());
+		long done = 0;
+		int best = 0;
+		for (Chain c : this.state) {
+			if (c != null) {
+				synchronized (c) {
+					lines.add(c.line());
+					done += c.step;
+					best = Math.max(best, c.bestScore);
+				}
+			}
+		}
+		Path tmp = this.checkpoint.resolveSibling(this.checkpoint.getFileName() + ".tmp");
+		try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+			for (String line : lines) {
+				out.write(line);
+				out.newLine();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		try {
+			Files.move(tmp, this.checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		System.out.println("checkpoint: " + done + "/" + this.steps * this.chains + " steps, best " + best);
+	}
+
+	/**
+	 * Searches for high-scoring boards and prints the best board of each chain.
+	 *
+	 * <p>
+	 * The arguments are, in order and all optional: the seed (default 1), the
+	 * number of chains (default the number of processors), the number of steps per
+	 * chain (default 100000), and the checkpoint file (default
+	 * {@code optimizer.checkpoint}).
+	 *
+	 * @param args the seed, chains, steps and checkpoint file
+	 */
+	public static void main(String[] args) {
+		long seed = args.length > 0 ? Long.parseLong(args[0]) : 1;
+		int chains = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		long steps = args.length > 2 ? Long.parseLong(args[2]) : 100000;
+		Path checkpoint = Paths.get(args.length > 3 ? args[3] : "optimizer.checkpoint");
+		BoardOptimizer optimizer = new BoardOptimizer(new BoggleDictionary().trie(), seed, chains, steps,
+				Math.max(1, steps / 10), checkpoint);
+		for (Result r : optimizer.run()) {
+			System.out.println(r.score());
+			System.out.print(r.board());
+			System.out.println();
+		}
+	}
+}
@@ -0,0 +1,213 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable snapshot of the 16 faces showing on a rolled Boggle board. The
+ * faces are stored in lower case in the same row-major order as the dice
+ * buttons in the view, so that cell {@code i} is in row {@code i / 4} and
+ * column {@code i % 4}.
+ *
+ * <p>
+ * The board can check if a word can be traced on it: a word can be traced if
+ * it can be spelled by a path of horizontally, vertically, or diagonally
+ * adjacent cells that uses each cell at most once. A cell showing {@code QU}
+ * contributes both letters to the word.
+ */
+public class BoggleBoard {
+
+	/**
+	 * The number of rows (and columns) of the board.
+	 */
+	public static final int SIZE = 4;
+
+	/**
+	 * The number of cells on the board.
+	 */
+	public static final int CELLS = SIZE * SIZE;
+
+	/**
+	 * For each cell, a bitmask of the cells adjacent to it.
+	 */
+	private static final int[] NEIGHBORS = new int[CELLS];
+
+	static {
+		for (int idx = 0; idx < CELLS; idx++) {
+			final int row = idx / SIZE;
+			final int col = idx % SIZE;
+			int mask = 0;
+			for (int i = Math.max(0, row - 1); i <= Math.min(SIZE - 1, row + 1); i++) {
+				for (int j = Math.max(0, col - 1); j <= Math.min(SIZE - 1, col + 1); j++) {
+					int n = i * SIZE + j;
+					if (n != idx) {
+						mask |= 1 << n;
+					}
+				}
+			}
+			NEIGHBORS[idx] = mask;
+		}
+	}
+
+	private final String[] faces;
+
+	/**
+	 * Initializes a board from the current faces of the specified dice.
+	 *
+	 * @param dice a list of 16 Boggle dice in board order
+	 * @throws IllegalArgumentException if {@code dice.size() != 16}
+	 */
+	public BoggleBoard(List<BoggleDie> dice) {
+		if (dice.size() != CELLS) {
+			throw new IllegalArgumentException("a board needs " + CELLS + " dice");
+		}
+		this.faces = new String[CELLS];
+		for (int i = 0; i < CELLS; i++) {
+			this.faces[i] = dice.get(i).currentFace().toLowerCase();
+		}
+	}
+
+	/**
+	 * Initializes a board from the specified faces in board order.
+	 *
+	 * @param faces an array of 16 face strings
+	 * @throws IllegalArgumentException if {@code faces.length != 16}
+	 */
+	public BoggleBoard(String[] faces) {
+		if (faces.length != CELLS) {
+			throw new IllegalArgumentException("a board needs " + CELLS + " faces");
+		}
+		this.faces = new String[CELLS];
+		for (int i = 0; i < CELLS; i++) {
+			this.faces[i] = faces[i].toLowerCase();
+		}
+	}
+
+	/**
+	 * Returns the lower-case face showing in the specified cell.
+	 *
+	 * @param cell a cell index between 0 and 15
+	 * @return the lower-case face showing in the cell
+	 */
+	public String face(int cell) {
+		return this.faces[cell];
+	}
+
+	/**
+	 * Returns a copy of the lower-case faces of this board in board order.
+	 *
+	 * @return a copy of the faces of this board
+	 */
+	public String[] faces() {
+		return this.faces.clone();
+	}
+
+	/**
+	 * Returns a bitmask of the cells adjacent to the specified cell; bit
+	 * {@code n} is set if cell {@code n} is a neighbor.
+	 *
+	 * @param cell a cell index between 0 and 15
+	 * @return a bitmask of the neighbors of the cell
+	 */
+	public static int neighbors(int cell) {
+		return NEIGHBORS[cell];
+	}
+
+	/**
+	 * Returns true if the specified word can be traced on this board, and false
+	 * otherwise. The search is a depth-first search from every cell whose face
+	 * matches the start of the word, where the cells already on the path are kept
+	 * in a bitmask. Because the board only has 16 cells and a path can only branch
+	 * to matching neighbors, the search is effectively constant time for any real
+	 * word.
+	 *
+	 * @param word a lower-case word
+	 * @return true if the word can be traced on this board, and false otherwise
+	 */
+	public boolean canTrace(String word) {
+		if (word.isEmpty()) {
+			return false;
+		}
+		for (int cell = 0; cell < CELLS; cell++) {
+			if (this.trace(word, 0, cell, 0)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Tries to match the face of {@code cell} at position {@code pos} of the word
+	 * and then continue the path through the unused neighbors of the cell.
+	 *
+	 * @param word the word being traced
+	 * @param pos  the index of the next unmatched character of the word
+	 * @param cell the cell to match next
+	 * @param used a bitmask of the cells already on the path
+	 * @return true if the rest of the word can be traced starting at the cell
+	 */
+	private boolean trace(String word, int pos, int cell, int used) {
+		String face = this.faces[cell];
+		if (!word.startsWith(face, pos)) {
+			return false;
+		}
+		int next = pos + face.length();
+		if (next == word.length()) {
+			return true;
+		}
+		used |= 1 << cell;
+		int candidates = NEIGHBORS[cell] & ~used;
+		while (candidates != 0) {
+			int n = Integer.numberOfTrailingZeros(candidates);
+			candidates &= candidates - 1;
+			if (this.trace(word, next, n, used)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Compares this board to the specified object. The result is {@code true} if
+	 * and only if the argument is a {@code BoggleBoard} showing the same faces in
+	 * the same cells.
+	 *
+	 * @param obj the object to compare
+	 * @return true if the two boards are equal, and false otherwise
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof BoggleBoard)) {
+			return false;
+		}
+		BoggleBoard other = (BoggleBoard) obj;
+		return Arrays.equals(this.faces, other.faces);
+	}
+
+	/**
+	 * Returns a hash code for this board.
+	 *
+	 * @return a hash code for this board
+	 */
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(this.faces);
+	}
+
+	/**
+	 * Returns a string representation of this board. The string is the upper-case
+	 * faces in board order, one row per line.
+	 *
+	 * @return a string representation of this board
+	 */
+	@Override
+	public String toString() {
+		StringBuilder b = new StringBuilder();
+		for (int i = 0; i < CELLS; i++) {
+			b.append(this.faces[i].toUpperCase());
+			b.append(i % SIZE == SIZE - 1 ? "\n" : " ");
+		}
+		return b.toString();
+	}
+}
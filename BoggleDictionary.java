@@ -1,9 +1,21 @@
+import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.Scanner;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.List;
+import java.util.Map;
 import java.util.ArrayList;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * The {@code BoggleDictionary} class initiates a list that represents an
@@ -18,6 +30,42 @@ public class BoggleDictionary {
 	// add your fields here
 	private List<String> wordDict;
 
+	/**
+	 * The words in front-coded form if the dictionary is compressed, and null
+	 * otherwise. When it is set, {@code wordDict} refers to the same list.
+	 */
+	private FrontCodedWords compressed;
+
+	/**
+	 * How often each word is used, by its index in {@code wordDict}, or null if no
+	 * frequencies have been loaded. Words without a frequency have 0.
+	 */
+	private volatile int[] frequencies;
+
+	/**
+	 * The index used to find anagrams; built the first time it is needed and
+	 * discarded whenever a word is added.
+	 */
+	private volatile AnagramIndex anagrams;
+
+	/**
+	 * The trie of the words, used to solve boards; built the first time it is
+	 * needed and discarded whenever a word is added.
+	 */
+	private volatile WordTrie trie;
+
+	/**
+	 * The smallest number of bytes of the dictionary file worth parsing on a
+	 * separate thread.
+	 */
+	private static final int MIN_CHUNK = 1 << 16;
+
+	/**
+	 * The number of words at which {@code filter} starts looking them up in
+	 * parallel.
+	 */
+	private static final int PARALLEL_FILTER_THRESHOLD = 1 << 15;
+
 	/**
 	 * Reads the dictionary file and stores the words from the file in the list
 	 * this.wordDict. The words in this file are in all lower case and sorted.
@@ -26,7 +74,12 @@ public class BoggleDictionary {
 	 * The dictionary file is named dictionary.txt and needs to be located in the
 	 * same package as this file.
 	 * 
-	 * @throws RuntimeException if dictionary.txt cannot be found
+	 * <p>
+	 * The file is read into memory in one go and then cut into one chunk per
+	 * processor, each ending on a whitespace character. The chunks are parsed in
+	 * parallel and joined back together in file order, so the list stays sorted.
+	 * 
+	 * @throws RuntimeException if dictionary.txt cannot be found or read
 	 * 
 	 */
 	private final void readDictionary() {
@@ -34,12 +87,63 @@ public class BoggleDictionary {
 		if (in == null) {
 			throw new RuntimeException("dictionary.txt is missing");
 		}
-		Scanner dictionaryInput = new Scanner(in);
-		while (dictionaryInput.hasNext()) {
-			String word = dictionaryInput.next();
-			this.wordDict.add(word.trim());
+		byte[] bytes;
+		try (InputStream dictionaryInput = in) {
+			bytes = dictionaryInput.readAllBytes();
+		} catch (IOException e) {
+			throw new UncheckedIOException("dictionary.txt cannot be read", e);
+		}
+		int chunks = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), bytes.length / MIN_CHUNK));
+		int[] bounds = new int[chunks + 1];
+		for (int c = 1; c < chunks; c++) {
+			int b = Math.max(bounds[c - 1], (int) ((long) bytes.length * c / chunks));
+			while (b < bytes.length && !isWhitespace(bytes[b])) {
+				b++;
+			}
+			bounds[c] = b;
+		}
+		bounds[chunks] = bytes.length;
+		List<List<String>> parts = IntStream.range(0, chunks).parallel()
+				.mapToObj(c -> parseWords(bytes, bounds[c], bounds[c + 1])).collect(Collectors.toList());
+		for (List<String> part : parts) {
+			this.wordDict.addAll(part);
+		}
+	}
+
+	/**
+	 * Returns the whitespace-separated words in {@code bytes[from, to)}.
+	 * 
+	 * @param bytes the UTF-8 contents of the dictionary file
+	 * @param from  the index of the first byte to parse
+	 * @param to    the index one past the last byte to parse
+	 * @return the words in the range in the order they appear
+	 */
+	private static List<String> parseWords(byte[] bytes, int from, int to) {
+		List<String> words = new ArrayList<String>();
+		int i = from;
+		while (i < to) {
+			while (i < to && isWhitespace(bytes[i])) {
+				i++;
+			}
+			int start = i;
+			while (i < to && !isWhitespace(bytes[i])) {
+				i++;
+			}
+			if (i > start) {
+				words.add(new String(bytes, start, i - start, StandardCharsets.UTF_8));
+			}
 		}
-		dictionaryInput.close();
+		return words;
+	}
+
+	/**
+	 * Returns true if the byte is an ASCII whitespace character.
+	 * 
+	 * @param b a byte of the dictionary file
+	 * @return true if the byte is an ASCII whitespace character
+	 */
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f';
 	}
 
 	/**
@@ -48,8 +152,216 @@ public class BoggleDictionary {
 	 * case and sorted.
 	 */
 	public BoggleDictionary() {
+		this(false);
+	}
+
+	/**
+	 * Initializes the dictionary from the dictionary file, optionally keeping the
+	 * words in compressed form. A compressed dictionary keeps the sorted words
+	 * front coded in a single byte array (see {@link FrontCodedWords}), which takes
+	 * a small fraction of the memory of a list of strings. Lookups in a compressed
+	 * dictionary cost a few times more, and words cannot be added to it.
+	 * 
+	 * @param compressed true to keep the words in compressed form
+	 */
+	public BoggleDictionary(boolean compressed) {
 		this.wordDict = new ArrayList<String>();
 		this.readDictionary();
+		if (compressed) {
+			this.compress();
+		}
+		InputStream in = this.getClass().getResourceAsStream("frequencies.txt");
+		if (in != null) {
+			this.loadFrequencies(in);
+		}
+	}
+
+	/**
+	 * Reads how often words are used, replacing any frequencies already loaded.
+	 * Each line of the input holds a word and a non-negative count separated by
+	 * whitespace; words that are not in the dictionary are skipped. The counts
+	 * are kept in one {@code int} array parallel to the words, so they cost 4
+	 * bytes per word.
+	 * 
+	 * <p>
+	 * Frequencies are read from frequencies.txt, if it is located in the same
+	 * package as this file, when the dictionary is created.
+	 * 
+	 * @param in the frequencies to read; the stream is closed
+	 * @throws UncheckedIOException if the input cannot be read
+	 * @throws NumberFormatException if a count is not a number
+	 */
+	public void loadFrequencies(InputStream in) {
+		int[] counts = new int[this.wordDict.size()];
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.trim().split("\\s+");
+				if (fields.length < 2) {
+					continue;
+				}
+				int i = this.indexOf(fields[0]);
+				if (i >= 0) {
+					counts[i] = (int) Math.min(Integer.MAX_VALUE, Long.parseLong(fields[1]));
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("frequencies cannot be read", e);
+		}
+		this.frequencies = counts;
+	}
+
+	/**
+	 * Returns how often the specified word is used, according to the frequencies
+	 * loaded into the dictionary.
+	 * 
+	 * @param word a word
+	 * @return how often the word is used, or 0 if it is not in the dictionary or
+	 *         has no frequency
+	 */
+	public int frequency(String word) {
+		int[] f = this.frequencies;
+		if (f == null) {
+			return 0;
+		}
+		int i = this.indexOf(word);
+		return i >= 0 && i < f.length ? f[i] : 0;
+	}
+
+	/**
+	 * Returns the priority used to rank a word of the dictionary: its frequency
+	 * in the high 32 bits, and a number that is higher for words earlier in the
+	 * dictionary in the low 32 bits, so that no two words of the dictionary have
+	 * the same priority and words used equally often rank in alphabetical order.
+	 * 
+	 * @param index the index of a word in the dictionary, or -1 for a word that
+	 *              is not in it
+	 * @return the priority of the word
+	 */
+	long rank(int index) {
+		if (index < 0) {
+			return 0;
+		}
+		int[] f = this.frequencies;
+		long frequency = f != null && index < f.length ? f[index] : 0;
+		return frequency << 32 | (Integer.MAX_VALUE - index);
+	}
+
+	/**
+	 * Returns the priority used to rank a word (see {@link #rank(int)}).
+	 * 
+	 * @param word a word
+	 * @return the priority of the word
+	 */
+	long rank(String word) {
+		return this.rank(this.indexOf(word));
+	}
+
+	/**
+	 * Returns up to {@code k} of the specified words ranked by how often they are
+	 * used, most used first, with ties in alphabetical order. The words are
+	 * offered to a {@code TopKHeap} of size {@code k}, so only the best {@code k}
+	 * are ever sorted. If no frequencies have been loaded, this returns the first
+	 * {@code k} words in alphabetical order. Words that are not in the dictionary
+	 * rank below every word that is; which of them are kept is not specified.
+	 * 
+	 * @param words the words to rank
+	 * @param k     the number of words to return
+	 * @return the {@code k} most used of the words, most used first
+	 * @throws IllegalArgumentException if {@code k < 1}
+	 */
+	public List<String> topRanked(Collection<String> words, int k) {
+		TopKHeap heap = new TopKHeap(k);
+		for (String w : words) {
+			heap.offer(w, this.rank(w));
+		}
+		return ranked(heap);
+	}
+
+	/**
+	 * Returns the words in a heap, highest priority first.
+	 * 
+	 * @param heap a heap of words
+	 * @return the words in the heap, highest priority first
+	 */
+	static List<String> ranked(TopKHeap heap) {
+		List<String> ranked = new ArrayList<String>();
+		for (Map.Entry<String, Long> e : heap.top()) {
+			ranked.add(e.getKey());
+		}
+		return ranked;
+	}
+
+	/**
+	 * Initializes a dictionary of the specified words instead of the words in the
+	 * dictionary file, optionally keeping them in compressed form. The words are
+	 * sorted and duplicates are removed; they are not changed to lower case.
+	 * 
+	 * @param words      the words of the dictionary
+	 * @param compressed true to keep the words in compressed form
+	 */
+	public BoggleDictionary(Collection<String> words, boolean compressed) {
+		this.wordDict = new ArrayList<String>(new TreeSet<String>(words));
+		if (compressed) {
+			this.compress();
+		}
+	}
+
+	/**
+	 * Initializes a compressed dictionary over the specified front-coded words.
+	 * 
+	 * @param words the words of the dictionary
+	 */
+	private BoggleDictionary(FrontCodedWords words) {
+		this.compressed = words;
+		this.wordDict = words;
+	}
+
+	/**
+	 * Returns a read-only dictionary over a file written by
+	 * {@link #write(Path)}, mapped into memory. The words are read straight from
+	 * the mapped file, so they take no heap space and are never scanned by the
+	 * garbage collector, and every JVM on the host that maps the same file shares
+	 * one copy of it. Lookups, prefix and similar-word queries run on the mapped
+	 * file directly; the trie and the anagram index are still built on the heap
+	 * the first time they are needed.
+	 * 
+	 * @param file a file written by {@code write}
+	 * @return a compressed dictionary of the words in the file
+	 * @throws IOException              if the file cannot be opened or mapped
+	 * @throws IllegalArgumentException if the file does not hold a dictionary
+	 */
+	public static BoggleDictionary map(Path file) throws IOException {
+		return new BoggleDictionary(FrontCodedWords.map(file));
+	}
+
+	/**
+	 * Writes the words of the dictionary to a file in front-coded form, to be
+	 * mapped by {@link #map(Path)}. The file is replaced atomically.
+	 * 
+	 * @param file the file to write
+	 * @throws IOException if the file cannot be written
+	 */
+	public void write(Path file) throws IOException {
+		FrontCodedWords words = this.compressed != null ? this.compressed : new FrontCodedWords(this.wordDict);
+		words.write(file);
+	}
+
+	/**
+	 * Replaces the list of words with the same words in front-coded form.
+	 */
+	private void compress() {
+		this.compressed = new FrontCodedWords(this.wordDict);
+		this.wordDict = this.compressed;
+	}
+
+	/**
+	 * Returns true if the words of the dictionary are kept in compressed form.
+	 * 
+	 * @return true if the dictionary is compressed
+	 */
+	public boolean isCompressed() {
+		return this.compressed != null;
 	}
 
 	/**
@@ -66,10 +378,17 @@ public class BoggleDictionary {
 	 * {@code contains()} method and if it is not, add it to the dictionary.
 	 * 
 	 * @param word the string to be checked to add to the dictionary.
+	 * @throws UnsupportedOperationException if the dictionary is compressed
 	 */
 	public void add(String word) {
 		if (!this.wordDict.contains(word)) {
 			this.wordDict.add(word);
+			this.anagrams = null;
+			this.trie = null;
+			int[] f = this.frequencies;
+			if (f != null) {
+				this.frequencies = Arrays.copyOf(f, this.wordDict.size());
+			}
 		}
 	}
 
@@ -83,6 +402,9 @@ public class BoggleDictionary {
 	 * @return true if the dictionary contains the word and false otherwise.
 	 */
 	public boolean contains(String word) {
+		if (this.compressed != null) {
+			return this.compressed.contains(word);
+		}
 		int low = 0;
 		int high = this.size() - 1;
 		while (low <= high) {
@@ -98,6 +420,181 @@ public class BoggleDictionary {
 		return false;
 	}
 
+	/**
+	 * Returns true if any word in the dictionary starts with the specified
+	 * prefix, using a binary search for the first word not less than the prefix.
+	 * 
+	 * @param prefix the prefix to look for
+	 * @return true if a word in the dictionary starts with the prefix
+	 */
+	public boolean containsPrefix(String prefix) {
+		if (this.compressed != null) {
+			return this.compressed.containsPrefix(prefix);
+		}
+		int i = this.lowerBound(prefix);
+		return i < this.wordDict.size() && this.wordDict.get(i).startsWith(prefix);
+	}
+
+	/**
+	 * Returns the index of the specified word in the dictionary.
+	 * 
+	 * @param word a word
+	 * @return the index of the word, or -1 if it is not in the dictionary
+	 */
+	private int indexOf(String word) {
+		int i = this.lowerBound(word);
+		return i < this.wordDict.size() && this.wordDict.get(i).equals(word) ? i : -1;
+	}
+
+	/**
+	 * Returns the index of the first word in the dictionary that is not less than
+	 * the specified word.
+	 * 
+	 * @param word a word
+	 * @return the index of the first word not less than the word, or the size of
+	 *         the dictionary if there is none
+	 */
+	private int lowerBound(String word) {
+		if (this.compressed != null) {
+			return this.compressed.lowerBound(word);
+		}
+		int i = Collections.binarySearch(this.wordDict, word);
+		return i >= 0 ? i : -i - 1;
+	}
+
+	/**
+	 * Returns the words in the specified collection that are in the dictionary.
+	 * This is the same as calling {@code contains} on every word and sorting the
+	 * words found, but faster for large collections: the words are sorted first,
+	 * and then looked up in one merged walk down the trie of the dictionary (see
+	 * {@link #trie()} and {@link WordTrie#containsSorted}), in which each word
+	 * continues from the node reached by the prefix it shares with the word
+	 * before it, instead of by a binary search per word that compares it with a
+	 * string at every step. Sorting first also leaves the words found in order,
+	 * with any duplicates next to each other. The trie is built on the first call
+	 * if no board has been solved yet. A compressed dictionary is searched once
+	 * per word instead, so that it does not need a trie on the heap.
+	 * 
+	 * @param words the words to look up
+	 * @return the distinct words of the collection that are in the dictionary, in
+	 *         sorted order
+	 */
+	public List<String> filter(Collection<String> words) {
+		return this.filter(words, words.size() >= PARALLEL_FILTER_THRESHOLD);
+	}
+
+	/**
+	 * Returns the words in the specified collection that are in the dictionary
+	 * (see {@link #filter(Collection)}). If {@code parallel} is true, the words
+	 * are sorted in parallel, and then split into one range per processor, each
+	 * looked up by its own merged walk down the trie.
+	 * 
+	 * @param words    the words to look up
+	 * @param parallel true to look up the words in parallel
+	 * @return the distinct words of the collection that are in the dictionary, in
+	 *         sorted order
+	 */
+	public List<String> filter(Collection<String> words, boolean parallel) {
+		String[] batch = words.toArray(new String[0]);
+		if (parallel) {
+			Arrays.parallelSort(batch);
+		} else {
+			Arrays.sort(batch);
+		}
+		boolean[] found = new boolean[batch.length];
+		int chunks = parallel ? Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), batch.length / 1024))
+				: 1;
+		IntStream ranges = IntStream.range(0, chunks);
+		(parallel ? ranges.parallel() : ranges).forEach(c -> {
+			int from = (int) ((long) batch.length * c / chunks);
+			int to = (int) ((long) batch.length * (c + 1) / chunks);
+			if (this.compressed != null) {
+				for (int i = from; i < to; i++) {
+					found[i] = this.compressed.contains(batch[i]);
+				}
+				return;
+			}
+			this.trie().containsSorted(batch, from, to, found);
+			for (int i = from; i < to; i++) {
+				// the trie only holds words made of the letters a to z
+				if (!found[i] && !WordTrie.isLowerCaseWord(batch[i])) {
+					found[i] = this.contains(batch[i]);
+				}
+			}
+		});
+		List<String> result = new ArrayList<String>();
+		for (int i = 0; i < batch.length; i++) {
+			if (found[i] && (i == 0 || !batch[i].equals(batch[i - 1]))) {
+				result.add(batch[i]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the words in the dictionary that are anagrams of the specified
+	 * letters, that is, that use exactly the same letters the same number of
+	 * times.
+	 * 
+	 * @param letters a string of lower-case letters
+	 * @return a sorted set of the anagrams of the letters
+	 * @see AnagramIndex#anagramsOf(String)
+	 */
+	public SortedSet<String> anagramsOf(String letters) {
+		return this.anagramIndex().anagramsOf(letters);
+	}
+
+	/**
+	 * Returns the words in the dictionary that can be formed from the specified
+	 * letters, using each letter at most as many times as it appears. The trie
+	 * is built on the first call if no board has been solved yet.
+	 * 
+	 * @param letters a string of lower-case letters
+	 * @return a sorted set of the words that can be formed from the letters
+	 * @see WordTrie#wordsFormableFrom(String)
+	 */
+	public SortedSet<String> wordsFormableFrom(String letters) {
+		return this.trie().wordsFormableFrom(letters);
+	}
+
+	/**
+	 * Returns the anagram index of the dictionary, building it if necessary.
+	 * 
+	 * @return the anagram index of the dictionary
+	 */
+	private AnagramIndex anagramIndex() {
+		AnagramIndex index = this.anagrams;
+		if (index == null) {
+			synchronized (this) {
+				index = this.anagrams;
+				if (index == null) {
+					index = new AnagramIndex(this.wordDict);
+					this.anagrams = index;
+				}
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Returns a trie of the words in the dictionary, building it if necessary.
+	 * 
+	 * @return a trie of the words in the dictionary
+	 */
+	public WordTrie trie() {
+		WordTrie t = this.trie;
+		if (t == null) {
+			synchronized (this) {
+				t = this.trie;
+				if (t == null) {
+					t = new WordTrie(this.wordDict);
+					this.trie = t;
+				}
+			}
+		}
+		return t;
+	}
+
 	/**
 	 * Calculates the hamming distance between two words by first making sure they
 	 * are equal length otherwise just return 10 to make sure they have a rather
@@ -151,11 +648,33 @@ public class BoggleDictionary {
 	 * Overall, the techniques used to implement this method is more efficient that
 	 * O(n) because it doesn't need to check every entries in the dictionary.
 	 * 
+	 * <p>
+	 * A compressed dictionary is instead searched once for the first word with the
+	 * starting letter, and the words from there are compared as they are decoded
+	 * (see {@link FrontCodedWords#similarWords(String, int, int)}).
+	 * 
 	 * @param word the word to be compared with for similarity.
 	 * @return SortedSet similar which contains all similar words to the given word.
 	 */
 	public SortedSet<String> wordsSimilarTo(String word) {
 		SortedSet<String> similar = new TreeSet<String>();
+		this.forEachSimilar(word, (w, index) -> similar.add(w));
+		return similar;
+	}
+
+	/**
+	 * Passes each word similar to the specified word (see
+	 * {@link #wordsSimilarTo(String)}) to an action, in sorted order, together
+	 * with its index in the dictionary.
+	 * 
+	 * @param word   the word to be compared with for similarity
+	 * @param action the action to pass each similar word and its index to
+	 */
+	private void forEachSimilar(String word, ObjIntConsumer<String> action) {
+		if (this.compressed != null) {
+			this.compressed.similarWords(word, 1, 1, action);
+			return;
+		}
 		int low = 0;
 		int i = 0, j = 0;
 		int high = this.wordDict.size() - 1;
@@ -176,7 +695,7 @@ public class BoggleDictionary {
 			}
 
 			while (true) {
-				if (this.wordDict.get(i).charAt(0) != word.charAt(0)) {
+				if (i < 0 || i >= this.wordDict.size() || this.wordDict.get(i).charAt(0) != word.charAt(0)) {
 					j = i + 1;
 					break;
 				}
@@ -184,13 +703,30 @@ public class BoggleDictionary {
 			}
 		}
 
-		while (this.wordDict.get(j).charAt(0) == word.charAt(0)) {
+		while (j < this.wordDict.size() && this.wordDict.get(j).charAt(0) == word.charAt(0)) {
 			if (hammingDistance(word, this.wordDict.get(j)) <= 1) {
-				similar.add(this.wordDict.get(j));
+				action.accept(this.wordDict.get(j), j);
 			}
 			j++;
 		}
-		return similar;
+	}
+
+	/**
+	 * Returns up to {@code k} of the words similar to the specified word (see
+	 * {@link #wordsSimilarTo(String)}), ranked by how often they are used (see
+	 * {@link #topRanked(Collection, int)}). The similar words are offered to a
+	 * {@code TopKHeap} as the dictionary is scanned, without collecting them
+	 * first.
+	 * 
+	 * @param word the word to be compared with for similarity
+	 * @param k    the number of words to return
+	 * @return the {@code k} most used words similar to the word, most used first
+	 * @throws IllegalArgumentException if {@code k < 1}
+	 */
+	public List<String> wordsSimilarTo(String word, int k) {
+		TopKHeap heap = new TopKHeap(k);
+		this.forEachSimilar(word, (w, index) -> heap.offer(w, this.rank(index)));
+		return ranked(heap);
 	}
 
 }
\ No newline at end of file
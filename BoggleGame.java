@@ -1,6 +1,15 @@
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.ArrayList;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class BoggleGame {
 	/**
@@ -8,6 +17,14 @@ public class BoggleGame {
 	 */
 	public static final int NUMBER_OF_DICE = 16;
 
+	/**
+	 * The number of dice rolled on their own since the dice were shuffled after
+	 * which the words on the board are kept by an {@code IncrementalSolver}.
+	 * Building one costs about as much as solving the board twice, so it only
+	 * pays for itself once the board keeps changing one die at a time.
+	 */
+	private static final int INCREMENTAL_ROLLS = 2;
+
 	/**
 	 * The letters on the 16 boggle dice (strings for one die on each line).
 	 */
@@ -18,33 +35,112 @@ public class BoggleGame {
 			{ "E", "E", "I", "N", "S", "U" }, { "E", "E", "G", "H", "N", "W" }, { "A", "F", "F", "K", "P", "S" },
 			{ "H", "L", "N", "N", "R", "Z" }, { "X", "D", "E", "I", "L", "R" } };
 
+	/**
+	 * Returns the faces of one of the 16 standard Boggle dice.
+	 * 
+	 * @param i the index of a die between 0 and 15
+	 * @return a new array of the faces of the die
+	 */
+	public static String[] facesOfDie(int i) {
+		return BoggleGame.LETTERS[i].clone();
+	}
+
 	/**
 	 * The 16 boggle dice.
 	 */
 	private ArrayList<BoggleDie> dice;
 
 	/**
-	 * The dictionary.
+	 * The dictionary. It is loaded in the background so that the game can be
+	 * created (and the view shown) without waiting for it.
 	 */
-	private BoggleDictionary dictionary;
+	private CompletableFuture<BoggleDictionary> dictionary;
 
 	/**
 	 * The shuffler. Students should use an instance of their Shuffler class.
 	 */
 	private Shuffler<BoggleDie> shuffler;
 
+	/**
+	 * The faces currently showing on the dice, used to check that a submitted word
+	 * can be traced on the board. Rebuilt every time the dice are rolled.
+	 */
+	private BoggleBoard board;
+
+	/**
+	 * Keeps the words on the board up to date as single dice are rolled with
+	 * {@code rollDie}, or null if the board has not been solved since enough dice
+	 * were rolled on their own, and the number of dice rolled on their own since
+	 * the dice were last shuffled.
+	 */
+	private IncrementalSolver incremental;
+	private int rolls;
+
 	/**
 	 * Initializes a Boggle game by creating the 16 standard boggle dice and a
-	 * dictionary.
+	 * dictionary. The dictionary is loaded in the background; this constructor
+	 * returns without waiting for it, and the methods that need the dictionary
+	 * wait for it to finish loading.
 	 * 
 	 */
 	public BoggleGame() {
+		this(CompletableFuture.supplyAsync(BoggleDictionary::new));
+		this.dictionary.thenRun(StartupMetrics::dictionaryReady);
+	}
+
+	/**
+	 * Initializes a Boggle game by creating the 16 standard boggle dice and using
+	 * the specified dictionary, which has already been loaded. Any number of games
+	 * can share one dictionary.
+	 * 
+	 * @param dictionary the dictionary of the game
+	 */
+	public BoggleGame(BoggleDictionary dictionary) {
+		this(CompletableFuture.completedFuture(dictionary));
+	}
+
+	/**
+	 * Initializes a Boggle game by creating the 16 standard boggle dice and using
+	 * the dictionary that the specified future completes with.
+	 * 
+	 * @param dictionary the dictionary of the game, possibly still loading
+	 */
+	private BoggleGame(CompletableFuture<BoggleDictionary> dictionary) {
 		this.shuffler = new FisherYatesShuffler<>();
-		this.dictionary = new BoggleDictionary();
+		this.dictionary = dictionary;
 		this.dice = new ArrayList<BoggleDie>();
 		for (int i = 0; i < BoggleGame.NUMBER_OF_DICE; i++) {
 			this.dice.add(new BoggleDie(BoggleGame.LETTERS[i]));
 		}
+		this.board = new BoggleBoard(this.dice);
+	}
+
+	/**
+	 * Returns a future that completes when the dictionary has finished loading.
+	 * The future completes exceptionally if the dictionary could not be loaded.
+	 * 
+	 * @return a future that completes when the dictionary is ready
+	 */
+	public CompletableFuture<Void> dictionaryReady() {
+		return this.dictionary.thenRun(() -> {
+		});
+	}
+
+	/**
+	 * Returns the dictionary, waiting for it to finish loading if necessary.
+	 * 
+	 * @return the dictionary
+	 * @throws RuntimeException if the dictionary could not be loaded
+	 */
+	private BoggleDictionary dictionary() {
+		try {
+			return this.dictionary.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
 	}
 
 	/**
@@ -81,19 +177,226 @@ public class BoggleGame {
 		for (BoggleDie d : this.dice) {
 			d.roll();
 		}
+		this.board = new BoggleBoard(this.dice);
+		this.incremental = null;
+		this.rolls = 0;
+	}
+
+	/**
+	 * Rolls only the die in the specified cell of the board, leaving the other
+	 * dice where they are and showing the same faces.
+	 * 
+	 * <p>
+	 * Once a few dice have been rolled on their own after the dice are shuffled,
+	 * the next call to {@link #solve()} or {@link #boardScore()} solves the board
+	 * with an {@code IncrementalSolver}. After that, each roll only updates the
+	 * words whose paths use the cell, and the words and score are read from the
+	 * solver instead of solving the board again.
+	 * 
+	 * @param cell a cell index between 0 and 15
+	 * @return the face now showing on the die
+	 * @throws IndexOutOfBoundsException if the cell is not between 0 and 15
+	 */
+	public String rollDie(int cell) {
+		String face = this.dice.get(cell).roll();
+		this.board = new BoggleBoard(this.dice);
+		this.rolls++;
+		if (this.incremental != null) {
+			this.incremental.set(cell, face);
+		}
+		return face;
+	}
+
+	/**
+	 * Returns the faces currently showing on the dice. The board is immutable, so
+	 * it does not change when the dice are rolled again.
+	 * 
+	 * @return the faces currently showing on the dice
+	 */
+	public BoggleBoard getBoard() {
+		return this.board;
 	}
 
 	/**
 	 * Returns true if the specified string is a legal Boggle word, and false
-	 * otherwise. A legal Boggle word is at least 3 letters long and can be found in
-	 * the dictionary.
+	 * otherwise. A legal Boggle word is at least 3 letters long, can be found in
+	 * the dictionary, and can be traced on the current dice (see
+	 * {@link BoggleBoard#canTrace(String)}).
+	 * 
+	 * <p>
+	 * The view only lets the player spell words along a path, but the path is
+	 * checked again here so that the game never has to trust its client.
 	 * 
 	 * @param s a string
 	 * @return true if the specified string is a legal Boggle word, and false
 	 *         otherwise
 	 */
 	public boolean isABoggleWord(String s) {
-		return s.length() > 2 && this.dictionary.contains(s.toLowerCase());
+		return this.isABoggleWord(this.board, s);
+	}
+
+	/**
+	 * Returns true if the specified string is a legal Boggle word on the specified
+	 * board, which need not be the current dice, and false otherwise (see
+	 * {@link #isABoggleWord(String)}).
+	 * 
+	 * @param board a board
+	 * @param s     a string
+	 * @return true if the specified string is a legal Boggle word on the board,
+	 *         and false otherwise
+	 */
+	boolean isABoggleWord(BoggleBoard board, String s) {
+		String word = s.toLowerCase();
+		return word.length() > 2 && board.canTrace(word) && this.dictionary().contains(word);
+	}
+
+	/**
+	 * Returns the legal Boggle words in the specified collection (see
+	 * {@link #isABoggleWord(String)}). The words that are long enough and can be
+	 * traced on the current dice are looked up in the dictionary all at once with
+	 * {@link BoggleDictionary#filter(Collection)}, which is much faster than
+	 * checking them one at a time.
+	 * 
+	 * @param words a collection of strings
+	 * @return the distinct legal Boggle words of the collection in lower case and
+	 *         sorted order
+	 */
+	public List<String> validateAll(Collection<String> words) {
+		List<String> candidates = new ArrayList<String>();
+		for (String s : words) {
+			String word = s.toLowerCase();
+			if (word.length() > 2 && this.board.canTrace(word)) {
+				candidates.add(word);
+			}
+		}
+		return this.dictionary().filter(candidates);
+	}
+
+	/**
+	 * Returns a stream of the legal Boggle words in the specified stream. The
+	 * stream is read lazily in batches of {@code batchSize} strings, and each batch
+	 * is checked with {@link #validateAll(Collection)}; the words of each batch are
+	 * returned in sorted order, and a word that appears in more than one batch is
+	 * returned once per batch. Closing the returned stream closes the specified
+	 * stream.
+	 * 
+	 * @param words     a stream of strings
+	 * @param batchSize the number of strings to check at once
+	 * @return a stream of the legal Boggle words in lower case
+	 * @throws IllegalArgumentException if {@code batchSize < 1}
+	 */
+	public Stream<String> validateAll(Stream<String> words, int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batch size must be positive");
+		}
+		Iterator<String> source = words.iterator();
+		Iterator<List<String>> batches = new Iterator<List<String>>() {
+			@Override
+			public boolean hasNext() {
+				return source.hasNext();
+			}
+
+			@Override
+			public List<String> next() {
+				List<String> batch = new ArrayList<String>(batchSize);
+				while (batch.size() < batchSize && source.hasNext()) {
+					batch.add(source.next());
+				}
+				return validateAll(batch);
+			}
+		};
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(batches, Spliterator.ORDERED), false)
+				.flatMap(List::stream).onClose(words::close);
+	}
+
+	/**
+	 * Returns all of the legal Boggle words on the current dice.
+	 * 
+	 * @return a sorted set of all of the legal Boggle words on the current dice
+	 */
+	public SortedSet<String> solve() {
+		IncrementalSolver solver = this.incremental();
+		if (solver != null) {
+			return new TreeSet<String>(solver.words());
+		}
+		return new BoggleSolver(this.dictionary().trie()).solve(this.board);
+	}
+
+	/**
+	 * Returns the total score of all of the legal Boggle words on the current
+	 * dice, counting each word once.
+	 * 
+	 * @return the total score of the current dice
+	 */
+	public int boardScore() {
+		IncrementalSolver solver = this.incremental();
+		if (solver != null) {
+			return solver.score();
+		}
+		return new BoggleSolver(this.dictionary().trie()).score(this.board);
+	}
+
+	/**
+	 * Returns the solver keeping the words on the board, building it if enough
+	 * dice have been rolled on their own since the dice were shuffled.
+	 * 
+	 * @return the solver keeping the words on the board, or null if the board is
+	 *         better solved from scratch
+	 */
+	private IncrementalSolver incremental() {
+		if (this.incremental == null && this.rolls >= INCREMENTAL_ROLLS) {
+			this.incremental = new IncrementalSolver(this.dictionary().trie(), this.board);
+		}
+		return this.incremental;
+	}
+
+	/**
+	 * Returns the words in the dictionary that are at least 3 letters long and can
+	 * be formed from the letters showing on the dice, ignoring where the dice are
+	 * on the board. Every legal Boggle word on the board is in the returned set,
+	 * but not every word in the set can be traced on the board.
+	 * 
+	 * @return a sorted set of the words that can be formed from the current faces
+	 */
+	public SortedSet<String> possibleWords() {
+		String letters = String.join("", this.board.faces());
+		SortedSet<String> words = this.dictionary().wordsFormableFrom(letters);
+		words.removeIf(w -> w.length() < 3);
+		return words;
+	}
+
+	/**
+	 * Returns the number of points a legal Boggle word is worth under the standard
+	 * rules: 1 point for 3 or 4 letters, 2 points for 5 letters, 3 points for 6
+	 * letters, 5 points for 7 letters, and 11 points for 8 or more letters.
+	 * 
+	 * @param word a legal Boggle word
+	 * @return the number of points the word is worth
+	 */
+	public static int score(String word) {
+		return score(word.length());
+	}
+
+	/**
+	 * Returns the number of points a legal Boggle word of the specified length is
+	 * worth (see {@link #score(String)}).
+	 * 
+	 * @param n the number of letters in a word
+	 * @return the number of points a word of that length is worth
+	 */
+	public static int score(int n) {
+		if (n < 3) {
+			return 0;
+		} else if (n < 5) {
+			return 1;
+		} else if (n == 5) {
+			return 2;
+		} else if (n == 6) {
+			return 3;
+		} else if (n == 7) {
+			return 5;
+		}
+		return 11;
 	}
 
 	/**
@@ -106,7 +409,36 @@ public class BoggleGame {
 	 *         to the specified word
 	 */
 	public SortedSet<String> wordsSimilarTo(String word) {
-		return this.dictionary.wordsSimilarTo(word);
+		return this.dictionary().wordsSimilarTo(word);
+	}
+
+	/**
+	 * Returns up to {@code k} of the words in the dictionary that are similar to
+	 * the specified word, most commonly used first.
+	 * 
+	 * @param word a word
+	 * @param k    the number of words to return
+	 * @return the {@code k} most commonly used words similar to the word
+	 * @throws IllegalArgumentException if {@code k < 1}
+	 */
+	public List<String> wordsSimilarTo(String word, int k) {
+		return this.dictionary().wordsSimilarTo(word, k);
+	}
+
+	/**
+	 * Returns up to {@code k} of the legal Boggle words on the current dice, most
+	 * commonly used first, for use as hints. The words are offered to a
+	 * {@code TopKHeap} as the solver finds them, without collecting them first.
+	 * 
+	 * @param k the number of words to return
+	 * @return the {@code k} most commonly used legal Boggle words on the dice
+	 * @throws IllegalArgumentException if {@code k < 1}
+	 */
+	public List<String> hints(int k) {
+		BoggleDictionary d = this.dictionary();
+		TopKHeap heap = new TopKHeap(k);
+		new BoggleSolver(d.trie()).forEachWord(this.board, w -> heap.offer(w, d.rank(w)));
+		return BoggleDictionary.ranked(heap);
 	}
 
 	/**
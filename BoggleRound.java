@@ -0,0 +1,202 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A multiplayer round played by any number of players on the same
+ * {@code BoggleGame} board. Players submit words concurrently; when the round
+ * is finished each player scores the words that no other player found (under
+ * the standard rules, a word found by more than one player is worth zero
+ * points).
+ *
+ * <p>
+ * Submissions are stored in a {@code ConcurrentHashMap} of per-player
+ * concurrent maps from word to submission time, so players submitting at the
+ * same time only contend when they hash to the same bin. Nothing is shared by
+ * the whole room on the way in: each player's words are closed on their own
+ * (see {@code PlayerWords}), so a submission only ever waits for another
+ * submission by the same player, or for {@code finish} closing that player.
+ * Words are checked against the board the round was created on, so the dice of
+ * the game can be rolled while the round is in progress.
+ */
+public class BoggleRound {
+
+	private final BoggleGame game;
+	private final BoggleBoard board;
+	private final long startTime;
+	private final ConcurrentHashMap<String, PlayerWords> submissions;
+	private volatile boolean closed;
+	private Map<String, Integer> scores;
+
+	/**
+	 * Initializes an empty round played on the current board of the specified
+	 * game.
+	 *
+	 * @param game the game whose board the round is played on
+	 */
+	public BoggleRound(BoggleGame game) {
+		this.game = game;
+		this.board = game.getBoard();
+		this.startTime = System.currentTimeMillis();
+		this.submissions = new ConcurrentHashMap<String, PlayerWords>();
+		this.closed = false;
+		this.scores = null;
+	}
+
+	/**
+	 * The words accepted for one player, with the time each was submitted.
+	 *
+	 * <p>
+	 * A word is added while holding the lock of the player, after checking that
+	 * neither the player nor the round is closed, and {@code finish} closes every
+	 * player in turn while holding its lock, after closing the round. So
+	 * {@code finish} only waits for words being added by the player it is
+	 * closing, and no word is added to a player after it is closed. A player
+	 * added while the round is being closed is either seen and closed by
+	 * {@code finish}, or sees that the round is closed when it adds its first
+	 * word.
+	 */
+	private static final class PlayerWords {
+
+		private final ConcurrentHashMap<String, Long> words = new ConcurrentHashMap<String, Long>();
+		private boolean closed = false;
+	}
+
+	/**
+	 * Adds a player to this round. Players are also added automatically on their
+	 * first submission; adding a player explicitly makes sure that they are scored
+	 * even if they never submit a word.
+	 *
+	 * @param player the name of the player
+	 * @throws IllegalStateException if the round has been finished
+	 */
+	public void join(String player) {
+		if (this.closed) {
+			throw new IllegalStateException("the round has been finished");
+		}
+		this.submissions.computeIfAbsent(player, p -> new PlayerWords());
+	}
+
+	/**
+	 * Submits a word on behalf of a player. The word is accepted if the round is
+	 * still open, the word is a legal Boggle word on the board the round is played
+	 * on, and the player has not already submitted it. This method is safe to call from many
+	 * threads at once.
+	 *
+	 * @param player the name of the player submitting the word
+	 * @param word   the submitted word
+	 * @return true if the word was accepted, and false otherwise
+	 */
+	public boolean submit(String player, String word) {
+		if (this.closed) {
+			return false;
+		}
+		String w = word.toLowerCase();
+		if (!this.game.isABoggleWord(this.board, w)) {
+			return false;
+		}
+		PlayerWords p = this.submissions.computeIfAbsent(player, name -> new PlayerWords());
+		synchronized (p) {
+			if (p.closed || this.closed) {
+				return false;
+			}
+			return p.words.putIfAbsent(w, System.currentTimeMillis()) == null;
+		}
+	}
+
+	/**
+	 * Returns true if the round has been finished, and false otherwise.
+	 *
+	 * @return true if the round has been finished, and false otherwise
+	 */
+	public boolean isFinished() {
+		return this.closed;
+	}
+
+	/**
+	 * Returns the names of the players in this round.
+	 *
+	 * @return an unmodifiable view of the names of the players in this round
+	 */
+	public Set<String> players() {
+		return Collections.unmodifiableSet(this.submissions.keySet());
+	}
+
+	/**
+	 * Returns the words accepted for the specified player.
+	 *
+	 * @param player the name of a player
+	 * @return an unmodifiable view of the words accepted for the player, or an
+	 *         empty set if the player is not in this round
+	 */
+	public Set<String> wordsFoundBy(String player) {
+		PlayerWords p = this.submissions.get(player);
+		if (p == null) {
+			return Collections.emptySet();
+		}
+		return Collections.unmodifiableSet(p.words.keySet());
+	}
+
+	/**
+	 * Closes the round to further submissions and returns the score of every
+	 * player. Calling this method again returns the same scores.
+	 *
+	 * <p>
+	 * The scores are resolved with two parallel passes: the first counts how many
+	 * players found each word by merging all of the per-player words into a
+	 * concurrent map, and the second sums the scores of the words that only one
+	 * player found.
+	 *
+	 * @return an unmodifiable map from player name to score
+	 */
+	public synchronized Map<String, Integer> finish() {
+		if (this.scores != null) {
+			return this.scores;
+		}
+		this.closed = true;
+		for (PlayerWords p : this.submissions.values()) {
+			synchronized (p) {
+				p.closed = true;
+			}
+		}
+		Map<String, Long> finders = this.submissions.values().parallelStream()
+				.flatMap(p -> p.words.keySet().stream())
+				.collect(Collectors.groupingByConcurrent(Function.identity(), Collectors.counting()));
+		Map<String, Integer> result = this.submissions.entrySet().parallelStream()
+				.collect(Collectors.toConcurrentMap(Map.Entry::getKey, e -> e.getValue().words.keySet().stream()
+						.filter(w -> finders.get(w) == 1).mapToInt(BoggleGame::score).sum()));
+		this.scores = Collections.unmodifiableMap(result);
+		return this.scores;
+	}
+
+	/**
+	 * Finishes the round if necessary and returns a record of it for the game
+	 * history. The record holds the board, the time the round started, and each
+	 * player's score and accepted words with the time each word was submitted.
+	 *
+	 * @param roundId the ID to give the round in the history
+	 * @return a record of this round
+	 */
+	public RoundRecord toRecord(long roundId) {
+		Map<String, Integer> result = this.finish();
+		List<RoundRecord.Player> players = new ArrayList<RoundRecord.Player>();
+		for (Map.Entry<String, Integer> e : result.entrySet()) {
+			List<Map.Entry<String, Long>> words;
+			words = new ArrayList<Map.Entry<String, Long>>(this.submissions.get(e.getKey()).words.entrySet());
+			words.sort(Map.Entry.comparingByValue());
+			String[] w = new String[words.size()];
+			long[] times = new long[words.size()];
+			for (int i = 0; i < w.length; i++) {
+				w[i] = words.get(i).getKey();
+				times[i] = words.get(i).getValue();
+			}
+			players.add(new RoundRecord.Player(e.getKey(), e.getValue(), w, times));
+		}
+		return new RoundRecord(roundId, this.startTime, this.board, players);
+	}
+}
@@ -0,0 +1,154 @@
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Finds all of the legal Boggle words on a board. The solver walks every path
+ * on the board depth-first while following the same letters down a
+ * {@code WordTrie}, and stops extending a path as soon as no word starts with
+ * its letters.
+ *
+ * <p>
+ * {@code solve}, {@code forEachWord} and {@code score} all share one walk of
+ * the board. The words already found in a walk are kept in a
+ * {@code NodeCounts} by their trie node, so each word is reported and scored
+ * once, and the scratch state of a solver grows with the number of words on a
+ * board rather than with the size of the trie. A solver keeps that state
+ * between calls so that {@code score} does not allocate; use one solver per
+ * thread. Solvers for the same trie are cheap to create and can be used on
+ * different threads at the same time.
+ */
+public class BoggleSolver {
+
+	/**
+	 * The shortest legal Boggle word.
+	 */
+	public static final int MIN_LENGTH = 3;
+
+	private final WordTrie trie;
+
+	/**
+	 * The trie nodes of the words found so far in the current walk.
+	 */
+	private final NodeCounts found;
+	private int points;
+
+	/**
+	 * Initializes a solver that looks for the words in the specified trie.
+	 *
+	 * @param trie the words to look for
+	 */
+	public BoggleSolver(WordTrie trie) {
+		this.trie = trie;
+		this.found = new NodeCounts();
+		this.points = 0;
+	}
+
+	/**
+	 * Returns the trie this solver looks for words in.
+	 *
+	 * @return the trie this solver looks for words in
+	 */
+	public WordTrie trie() {
+		return this.trie;
+	}
+
+	/**
+	 * Returns all of the words in the trie that are at least 3 letters long and
+	 * can be traced on the specified board.
+	 *
+	 * @param board a board
+	 * @return a sorted set of the legal Boggle words on the board
+	 */
+	public SortedSet<String> solve(BoggleBoard board) {
+		SortedSet<String> words = new TreeSet<String>();
+		this.forEachWord(board, words::add);
+		return words;
+	}
+
+	/**
+	 * Passes each of the words that {@code solve(board)} returns to an action
+	 * once, in the order the walk of the board finds them, without collecting
+	 * them first.
+	 *
+	 * @param board  a board
+	 * @param action the action to pass each legal Boggle word on the board to
+	 */
+	public void forEachWord(BoggleBoard board, Consumer<String> action) {
+		this.walk(board, new StringBuilder(), action);
+	}
+
+	/**
+	 * Returns the total score of all of the legal Boggle words on the specified
+	 * board, counting each word once. This is the same as summing
+	 * {@link BoggleGame#score(String)} over {@code solve(board)}, but it does not
+	 * build the words, which makes it suitable for scoring many boards.
+	 *
+	 * @param board a board
+	 * @return the total score of the board
+	 */
+	public int score(BoggleBoard board) {
+		return this.walk(board, null, null);
+	}
+
+	/**
+	 * Walks every path on a board, scoring each word the first time it is found
+	 * and passing it to the action if there is one.
+	 *
+	 * @param board  the board to walk
+	 * @param path   a buffer for the letters of the path, or null if the words are
+	 *               not needed
+	 * @param action the action to pass each word to, or null
+	 * @return the total score of the words found
+	 */
+	private int walk(BoggleBoard board, StringBuilder path, Consumer<String> action) {
+		this.found.clear();
+		this.points = 0;
+		for (int cell = 0; cell < BoggleBoard.CELLS; cell++) {
+			this.visit(board, cell, WordTrie.ROOT, 0, 0, path, action);
+		}
+		return this.points;
+	}
+
+	/**
+	 * Extends a path into {@code cell}, scores the word it spells and passes it to
+	 * the action if the word has not been found before, and continues through the
+	 * unused neighbors of the cell.
+	 *
+	 * @param board  the board being walked
+	 * @param cell   the cell to extend the path into
+	 * @param node   the trie node for the letters of the path so far
+	 * @param used   a bitmask of the cells already on the path
+	 * @param length the number of letters of the path so far
+	 * @param path   the letters of the path so far, or null
+	 * @param action the action to pass each word to, or null
+	 */
+	private void visit(BoggleBoard board, int cell, int node, int used, int length, StringBuilder path,
+			Consumer<String> action) {
+		String face = board.face(cell);
+		node = this.trie.walk(node, face);
+		if (node < 0) {
+			return;
+		}
+		length += face.length();
+		if (path != null) {
+			path.append(face);
+		}
+		if (this.trie.isWord(node) && length >= MIN_LENGTH && this.found.add(node, 1) == 1) {
+			this.points += BoggleGame.score(length);
+			if (action != null) {
+				action.accept(path.toString());
+			}
+		}
+		used |= 1 << cell;
+		int candidates = BoggleBoard.neighbors(cell) & ~used;
+		while (candidates != 0) {
+			int n = Integer.numberOfTrailingZeros(candidates);
+			candidates &= candidates - 1;
+			this.visit(board, n, node, used, length, path, action);
+		}
+		if (path != null) {
+			path.setLength(path.length() - face.length());
+		}
+	}
+}
@@ -1,21 +1,53 @@
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
 
 /**
  * The controller for the Boggle app.
  *
+ * <p>
+ * The controller never calls the model on the Swing event thread. Each request
+ * is handed to an {@code AsyncBoggleGame} and its result is applied to the view
+ * back on the event thread with {@code SwingUtilities.invokeLater}. Results
+ * that arrive after the dice have been re-rolled, and suggestions for a word
+ * that has since been replaced by a newer submission, are dropped.
+ *
  */
 public class Controller implements ActionListener {
 
-	private BoggleGame model;
+	private AsyncBoggleGame model;
 	private View view;
 
+	/**
+	 * Counts the rolls requested so far; a result is only applied to the view if
+	 * no roll was requested after it. Only accessed on the event thread.
+	 */
+	private int round;
+	private CompletableFuture<?> pendingRoll;
+	private CompletableFuture<SortedSet<String>> pendingSuggestions;
+
+	/**
+	 * The last failure shown to the user. Only accessed on the event thread.
+	 */
+	private Throwable reportedFailure;
+
 	/**
 	 * Creates a controller with no model and no view.
 	 */
 	public Controller() {
 		this.model = null;
 		this.view = null;
+		this.round = 0;
+		this.pendingRoll = null;
+		this.pendingSuggestions = null;
+		this.reportedFailure = null;
 	}
 	
 	/**
@@ -26,7 +58,10 @@ public class Controller implements ActionListener {
 	 * @param model the model that the controller should use
 	 */
 	public void setModel(BoggleGame model) {
-		this.model = model;
+		if (this.model != null) {
+			this.model.shutdown();
+		}
+		this.model = new AsyncBoggleGame(model);
 	}
 	
 	/**
@@ -45,7 +80,12 @@ public class Controller implements ActionListener {
 	 * event where the action command is either
 	 * <code>BoggleView.ROLL_COMMAND</code> or
 	 * <code>BoggleView.SUBMIT_COMMAND</code>.
-	 * 
+	 *
+	 * <p>
+	 * A roll supersedes every outstanding request. A submission clears the
+	 * current word right away, and supersedes the suggestions of the previous
+	 * submission if they have not been shown yet.
+	 *
 	 * @param event an event emitted by the view
 	 *
 	 * @see java.awt.event.ActionListener#actionPerformed(java.awt.event.ActionEvent)
@@ -54,16 +94,89 @@ public class Controller implements ActionListener {
 	public void actionPerformed(ActionEvent event) {
 		String command = event.getActionCommand();
 		if (command.equals(View.ROLL_COMMAND)) {
-			this.model.shuffleAndRoll();
-			this.view.setDice(this.model.getDice());
+			this.round++;
+			cancel(this.pendingRoll);
+			cancel(this.pendingSuggestions);
+			CompletableFuture<List<BoggleDie>> roll = this.model.shuffleAndRoll();
+			this.pendingRoll = roll;
+			this.whenDone(roll, dice -> this.view.setDice(dice));
 		}
 		else if (command.equals(View.SUBMIT_COMMAND)) {
-			String word = this.view.getWord().toLowerCase();
-			boolean isOk = this.model.isABoggleWord(word);
-			this.view.setWordIsValid(isOk);
-			if (isOk) {
-				this.view.setSuggestedWords(this.model.wordsSimilarTo(word));
+			String shown = this.view.getWord();
+			String word = shown.toLowerCase();
+			this.view.clearCurrentWord();
+			AsyncBoggleGame model = this.model;
+			CompletableFuture<Boolean> isOk = model.isABoggleWord(word);
+			cancel(this.pendingSuggestions);
+			// suggestions are only looked up once the word is known to be valid, so an
+			// invalid (or empty) word never reaches the dictionary
+			CompletableFuture<SortedSet<String>> similar = isOk
+					.thenCompose(ok -> ok ? model.wordsSimilarTo(word) : cancelled());
+			this.pendingSuggestions = similar;
+			this.whenDone(isOk, ok -> this.view.setWordIsValid(shown, ok));
+			this.whenDone(similar, words -> {
+				if (this.pendingSuggestions == similar) {
+					this.view.setSuggestedWords(words);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Applies the result of a model request to the view on the event thread,
+	 * unless the dice have been rolled since the request was made. Cancelled
+	 * requests are ignored; other failures are shown to the user by the view,
+	 * once for each failure, so that a dictionary that could not be loaded is
+	 * reported once however many requests it fails.
+	 *
+	 * @param <T>    the type of the result
+	 * @param result the pending result of the request
+	 * @param update the view update to run with the result
+	 */
+	private <T> void whenDone(CompletableFuture<T> result, Consumer<T> update) {
+		final int requestRound = this.round;
+		result.whenComplete((value, ex) -> {
+			if (ex == null) {
+				SwingUtilities.invokeLater(() -> {
+					if (requestRound == this.round) {
+						update.accept(value);
+					}
+				});
+			} else {
+				Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+				if (!(cause instanceof CancellationException)) {
+					SwingUtilities.invokeLater(() -> {
+						if (cause != this.reportedFailure) {
+							this.reportedFailure = cause;
+							this.view.showError("The game could not finish a request: " + cause);
+						}
+					});
+				}
 			}
+		});
+	}
+
+	/**
+	 * Returns a future that has already been cancelled, for a request that is not
+	 * worth making.
+	 *
+	 * @param <T> the type of the result
+	 * @return a cancelled future
+	 */
+	private static <T> CompletableFuture<T> cancelled() {
+		CompletableFuture<T> f = new CompletableFuture<T>();
+		f.cancel(false);
+		return f;
+	}
+
+	/**
+	 * Cancels a pending request if there is one.
+	 *
+	 * @param request a pending request, or null
+	 */
+	private static void cancel(CompletableFuture<?> request) {
+		if (request != null) {
+			request.cancel(false);
 		}
 	}
 	
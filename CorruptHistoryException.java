@@ -0,0 +1,35 @@
+import java.io.IOException;
+
+/**
+ * Thrown by a {@code HistoryReader} when a record of a history file is
+ * complete but damaged: its length is impossible, it fails its checksum, or its
+ * payload cannot be decoded. A record cut off by the end of the file is not
+ * damaged; it is what a crash in the middle of a write leaves behind, and the
+ * reader treats it as the end of the history.
+ */
+public class CorruptHistoryException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long offset;
+
+	/**
+	 * Initializes an exception for the damaged record at the specified offset.
+	 *
+	 * @param offset the offset of the damaged record in the history file
+	 * @param reason what is wrong with the record
+	 */
+	public CorruptHistoryException(long offset, String reason) {
+		super("damaged record at offset " + offset + ": " + reason);
+		this.offset = offset;
+	}
+
+	/**
+	 * Returns the offset of the damaged record in the history file.
+	 *
+	 * @return the offset of the damaged record
+	 */
+	public long offset() {
+		return this.offset;
+	}
+}
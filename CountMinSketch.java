@@ -0,0 +1,91 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A count-min sketch: an estimate of how many times each string has been
+ * counted, in a fixed amount of memory no matter how many different strings
+ * are counted.
+ *
+ * <p>
+ * The sketch is a table of {@code depth} rows of {@code width} counters. Adding
+ * a string increments one counter in every row, picked by a different hash of
+ * the string in each row; the estimate for a string is the smallest of its
+ * counters. The estimate is never too low, and it is too high by at most
+ * {@code e / width} of the total count with probability
+ * {@code 1 - exp(-depth)}.
+ *
+ * <p>
+ * Strings can be counted from many threads at once; the counters are atomic.
+ */
+public class CountMinSketch {
+
+	private final int depth;
+	private final int mask;
+	private final AtomicLongArray counters;
+
+	/**
+	 * Initializes an empty sketch.
+	 *
+	 * @param depth the number of rows
+	 * @param width the number of counters in each row, rounded up to a power of two
+	 * @throws IllegalArgumentException if {@code depth} or {@code width} is not
+	 *                                  positive
+	 */
+	public CountMinSketch(int depth, int width) {
+		if (depth < 1 || width < 1 || width > 1 << 30) {
+			throw new IllegalArgumentException("depth and width must be positive");
+		}
+		int w = Integer.highestOneBit(width);
+		if (w < width) {
+			w <<= 1;
+		}
+		this.depth = depth;
+		this.mask = w - 1;
+		this.counters = new AtomicLongArray(depth * w);
+	}
+
+	/**
+	 * Returns the counter used for a string in the specified row.
+	 *
+	 * @param hash the hash code of the string
+	 * @param row  a row of the sketch
+	 * @return the index of the counter in the table
+	 */
+	private int index(int hash, int row) {
+		long h = hash * 0x9E3779B97F4A7C15L + row * 0xC2B2AE3D27D4EB4FL;
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		return row * (this.mask + 1) + (int) (h & this.mask);
+	}
+
+	/**
+	 * Counts a string the specified number of times and returns its new estimate.
+	 *
+	 * @param s     a string
+	 * @param count the number of times to count the string
+	 * @return the estimated number of times the string has been counted
+	 */
+	public long add(String s, long count) {
+		int hash = s.hashCode();
+		long estimate = Long.MAX_VALUE;
+		for (int row = 0; row < this.depth; row++) {
+			estimate = Math.min(estimate, this.counters.addAndGet(this.index(hash, row), count));
+		}
+		return estimate;
+	}
+
+	/**
+	 * Returns the estimated number of times the string has been counted.
+	 *
+	 * @param s a string
+	 * @return the estimated number of times the string has been counted
+	 */
+	public long estimate(String s) {
+		int hash = s.hashCode();
+		long estimate = Long.MAX_VALUE;
+		for (int row = 0; row < this.depth; row++) {
+			estimate = Math.min(estimate, this.counters.get(this.index(hash, row)));
+		}
+		return estimate;
+	}
+}
@@ -0,0 +1,494 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Checks that every dictionary and solver engine gives the same answers as the
+ * reference implementation on randomly generated dictionaries, boards and
+ * queries, and measures how long each engine takes and how much it allocates.
+ *
+ * <p>
+ * The reference dictionary is a {@code BoggleDictionary} keeping its words in a
+ * list; every other dictionary engine is compared with it on {@code contains},
+ * {@code containsPrefix}, {@code filter}, {@code wordsSimilarTo},
+ * {@code anagramsOf} and {@code wordsFormableFrom}. Every engine answers
+ * {@code wordsFormableFrom} with the same trie walk, so it is also compared
+ * with a count of the letters of every word. The reference solver checks
+ * every word of the dictionary with {@link BoggleBoard#canTrace(String)}, the
+ * same way {@code BoggleGame.isABoggleWord} does; every solver engine is
+ * compared with it on the words found and the score. The random dictionaries
+ * contain words with {@code qu} and with {@code q} not followed by {@code u},
+ * and the random boards often have a {@code qu} face.
+ *
+ * <p>
+ * Every round also writes a short game history, damages its tail the way a
+ * crash or a bad disk would (zero bytes after the last record, a flipped byte
+ * in the last record, or the last record cut short), reopens it with a
+ * {@code HistoryWriter}, appends one more round, and checks that a
+ * {@code HistoryReader} replays every intact round followed by the new one.
+ *
+ * <p>
+ * Every round is generated from the seed and the round number, so a failure
+ * can be reproduced from the seed alone. Each engine runs a whole batch of
+ * queries at a time, and the time and bytes allocated for the batch are
+ * counted against the engine. Allocation is measured with
+ * {@code com.sun.management.ThreadMXBean} where the JVM supports it.
+ */
+public class DifferentialHarness {
+
+	/**
+	 * Letters used to build random words, repeated roughly in proportion to how
+	 * often they appear in English.
+	 */
+	private static final String LETTERS = "eeeeeeaaaaiiiioooottttnnnssssrrrhhlllddcuummfppggwyybvkjxqz";
+
+	private final long seed;
+	private final int rounds;
+	private final Map<String, long[]> costs;
+	private final com.sun.management.ThreadMXBean threads;
+	private long checks;
+	private long failures;
+
+	/**
+	 * Initializes a harness.
+	 *
+	 * @param seed   the seed the random dictionaries, boards and queries are
+	 *               generated from
+	 * @param rounds the number of random dictionaries to check
+	 */
+	public DifferentialHarness(long seed, int rounds) {
+		this.seed = seed;
+		this.rounds = rounds;
+		this.costs = new TreeMap<String, long[]>();
+		if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+			this.threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		} else {
+			this.threads = null;
+		}
+	}
+
+	/**
+	 * Runs every round and prints each mismatch as it is found.
+	 *
+	 * @return the number of mismatches found
+	 */
+	public long run() {
+		for (int round = 0; round < this.rounds; round++) {
+			Random random = new Random(this.seed * 1000003 + round);
+			List<String> words = randomWords(random, 500 + random.nextInt(20000));
+			Map<String, BoggleDictionary> dictionaries = dictionaries(words);
+			this.checkDictionaries(round, words, dictionaries, randomQueries(random, words, 2000));
+			Map<String, Function<BoggleBoard, Object>> solvers;
+			solvers = new LinkedHashMap<String, Function<BoggleBoard, Object>>();
+			for (Map.Entry<String, BoggleDictionary> d : dictionaries.entrySet()) {
+				for (Map.Entry<String, Function<BoggleBoard, Object>> s : solvers(d.getValue()).entrySet()) {
+					solvers.put(s.getKey() + "/" + d.getKey(), s.getValue());
+				}
+			}
+			for (int b = 0; b < 20; b++) {
+				this.checkSolvers(round, words, solvers, randomBoard(random));
+			}
+			this.checkHistory(round, random, words);
+		}
+		return this.failures;
+	}
+
+	/**
+	 * Returns the dictionary engines to compare, with the reference engine
+	 * first.
+	 *
+	 * @param words the words of the dictionaries
+	 * @return the dictionary engines by name
+	 */
+	private static Map<String, BoggleDictionary> dictionaries(List<String> words) {
+		Map<String, BoggleDictionary> engines = new LinkedHashMap<String, BoggleDictionary>();
+		engines.put("list", new BoggleDictionary(words, false));
+		engines.put("compressed", new BoggleDictionary(words, true));
+		try {
+			Path file = Files.createTempFile("boggle", ".dict");
+			file.toFile().deleteOnExit();
+			engines.get("list").write(file);
+			engines.put("mapped", BoggleDictionary.map(file));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return engines;
+	}
+
+	/**
+	 * Returns the solver engines to compare for a dictionary engine. The
+	 * incremental solver is moved from each board to the next by changing the
+	 * cells that differ one at a time.
+	 *
+	 * @param dictionary a dictionary engine
+	 * @return the solver engines by name, each returning the words found and the
+	 *         score of a board
+	 */
+	private static Map<String, Function<BoggleBoard, Object>> solvers(BoggleDictionary dictionary) {
+		Map<String, Function<BoggleBoard, Object>> engines;
+		engines = new LinkedHashMap<String, Function<BoggleBoard, Object>>();
+		BoggleSolver solver = new BoggleSolver(dictionary.trie());
+		engines.put("solver", board -> List.of(solver.solve(board), solver.score(board)));
+		IncrementalSolver[] incremental = new IncrementalSolver[1];
+		engines.put("incremental", board -> {
+			if (incremental[0] == null) {
+				incremental[0] = new IncrementalSolver(dictionary.trie(), board);
+			}
+			for (int cell = 0; cell < BoggleBoard.CELLS; cell++) {
+				incremental[0].set(cell, board.face(cell));
+			}
+			return List.of(incremental[0].words(), incremental[0].score());
+		});
+		return engines;
+	}
+
+	/**
+	 * Compares every dictionary engine with the reference engine on a batch of
+	 * queries.
+	 */
+	private void checkDictionaries(int round, List<String> words, Map<String, BoggleDictionary> dictionaries,
+			List<String> queries) {
+		List<String> letters = new ArrayList<String>();
+		for (String q : queries) {
+			if (q.length() <= 8) {
+				letters.add(q);
+			}
+		}
+		Map<String, Function<BoggleDictionary, Object>> operations;
+		operations = new LinkedHashMap<String, Function<BoggleDictionary, Object>>();
+		operations.put("contains", d -> map(queries, d::contains));
+		operations.put("containsPrefix", d -> map(queries, d::containsPrefix));
+		operations.put("filter", d -> d.filter(queries));
+		operations.put("wordsSimilarTo", d -> map(queries, d::wordsSimilarTo));
+		operations.put("anagramsOf", d -> map(letters, d::anagramsOf));
+		operations.put("wordsFormableFrom", d -> map(letters, d::wordsFormableFrom));
+		Map<String, Object> references = new LinkedHashMap<String, Object>();
+		references.put("wordsFormableFrom", this.measure("wordsFormableFrom/reference",
+				l -> map(l, s -> formableFrom(words, s)), letters));
+		for (Map.Entry<String, Function<BoggleDictionary, Object>> op : operations.entrySet()) {
+			Object expected = references.get(op.getKey());
+			for (Map.Entry<String, BoggleDictionary> engine : dictionaries.entrySet()) {
+				Object actual = this.measure(op.getKey() + "/" + engine.getKey(), op.getValue(), engine.getValue());
+				if (expected == null) {
+					expected = actual;
+				} else {
+					this.check(round, op.getKey() + "/" + engine.getKey(), expected, actual);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compares every solver engine, over every dictionary engine, with the
+	 * reference solver on a board.
+	 */
+	private void checkSolvers(int round, List<String> words, Map<String, Function<BoggleBoard, Object>> solvers,
+			BoggleBoard board) {
+		Object expected = this.measure("solve/reference", b -> {
+			SortedSet<String> found = new TreeSet<String>();
+			int score = 0;
+			for (String w : words) {
+				if (w.length() >= BoggleSolver.MIN_LENGTH && b.canTrace(w)) {
+					found.add(w);
+					score += BoggleGame.score(w);
+				}
+			}
+			return List.of(found, score);
+		}, board);
+		for (Map.Entry<String, Function<BoggleBoard, Object>> solver : solvers.entrySet()) {
+			String name = "solve/" + solver.getKey();
+			this.check(round, name + " on\n" + board, expected, this.measure(name, solver.getValue(), board));
+		}
+	}
+
+	/**
+	 * Writes a history of random rounds, damages its last record or the bytes
+	 * after it, and checks that reopening it keeps every intact round and lets
+	 * another round be appended.
+	 */
+	private void checkHistory(int round, Random random, List<String> words) {
+		int n = 10 + random.nextInt(40);
+		int damage = random.nextInt(3);
+		String what = "history/" + new String[] { "zero tail", "flipped byte", "torn record" }[damage];
+		List<Long> expected = new ArrayList<Long>();
+		List<Long> replayed = new ArrayList<Long>();
+		Path file = null;
+		try {
+			file = Files.createTempFile("boggle", ".history");
+			try (HistoryWriter writer = new HistoryWriter(file)) {
+				for (long id = 1; id <= n; id++) {
+					writer.append(randomRecord(random, id, words));
+				}
+			}
+			long last;
+			try (HistoryReader reader = new HistoryReader(file)) {
+				reader.seek(n);
+				last = reader.offset();
+			}
+			long size = Files.size(file);
+			try (FileChannel log = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				if (damage == 0) {
+					log.write(ByteBuffer.allocate(64), size);
+				} else if (damage == 1) {
+					int payload = (int) (size - last) - HistoryWriter.HEADER_BYTES;
+					long at = last + HistoryWriter.HEADER_BYTES + random.nextInt(payload);
+					ByteBuffer b = ByteBuffer.allocate(1);
+					log.read(b, at);
+					b.put(0, (byte) (b.get(0) ^ (1 + random.nextInt(255))));
+					b.rewind();
+					log.write(b, at);
+				} else {
+					log.truncate(last + 1 + random.nextInt((int) (size - last) - 1));
+				}
+			}
+			for (long id = 1; id < n || id == n && damage == 0; id++) {
+				expected.add(id);
+			}
+			expected.add(n + 1L);
+			try (HistoryWriter writer = new HistoryWriter(file)) {
+				writer.append(randomRecord(random, n + 1, words));
+			}
+			try (HistoryReader reader = new HistoryReader(file)) {
+				RoundRecord r;
+				while ((r = reader.next()) != null) {
+					replayed.add(r.roundId());
+				}
+			}
+			this.check(round, what, expected, replayed);
+		} catch (IOException e) {
+			this.check(round, what, expected, e);
+		} finally {
+			try {
+				if (file != null) {
+					Files.deleteIfExists(file);
+					Files.deleteIfExists(HistoryWriter.indexFile(file));
+				}
+			} catch (IOException e) {
+				// left for the system to clean up
+			}
+		}
+	}
+
+	/**
+	 * Returns a record of a random round with one player who found some words.
+	 */
+	private static RoundRecord randomRecord(Random random, long roundId, List<String> words) {
+		String[] found = new String[random.nextInt(20)];
+		long[] times = new long[found.length];
+		for (int i = 0; i < found.length; i++) {
+			found[i] = words.get(random.nextInt(words.size()));
+			times[i] = i;
+		}
+		List<RoundRecord.Player> players = List.of(new RoundRecord.Player("player", 0, found, times));
+		return new RoundRecord(roundId, random.nextLong(), randomBoard(random), players);
+	}
+
+	/**
+	 * Returns the words that can be formed from some letters, by counting the
+	 * letters of every word.
+	 */
+	private static SortedSet<String> formableFrom(List<String> words, String letters) {
+		int[] available = new int[26];
+		for (int i = 0; i < letters.length(); i++) {
+			available[letters.charAt(i) - 'a']++;
+		}
+		SortedSet<String> formable = new TreeSet<String>();
+		for (String w : words) {
+			int[] needed = new int[26];
+			boolean fits = true;
+			for (int i = 0; i < w.length() && fits; i++) {
+				int c = w.charAt(i) - 'a';
+				fits = ++needed[c] <= available[c];
+			}
+			if (fits) {
+				formable.add(w);
+			}
+		}
+		return formable;
+	}
+
+	/**
+	 * Applies a function to every query.
+	 */
+	private static <R> List<R> map(List<String> queries, Function<String, R> f) {
+		List<R> results = new ArrayList<R>(queries.size());
+		for (String q : queries) {
+			results.add(f.apply(q));
+		}
+		return results;
+	}
+
+	/**
+	 * Runs an engine on its input, adding the time it took and the bytes it
+	 * allocated to the costs of the engine. An engine that throws an exception
+	 * returns the exception, which is then compared like any other result.
+	 */
+	private <T> Object measure(String name, Function<T, Object> engine, T input) {
+		long id = Thread.currentThread().getId();
+		long bytes = this.threads == null ? 0 : this.threads.getThreadAllocatedBytes(id);
+		long start = System.nanoTime();
+		Object result;
+		try {
+			result = engine.apply(input);
+		} catch (RuntimeException e) {
+			result = e;
+		}
+		long[] cost = this.costs.computeIfAbsent(name, n -> new long[3]);
+		cost[0]++;
+		cost[1] += System.nanoTime() - start;
+		cost[2] += this.threads == null ? 0 : this.threads.getThreadAllocatedBytes(id) - bytes;
+		return result;
+	}
+
+	/**
+	 * Counts a check, and prints and counts a failure if the engine did not give
+	 * the expected result. Two engines that throw the same kind of exception
+	 * agree.
+	 */
+	private void check(int round, String what, Object expected, Object actual) {
+		this.checks++;
+		boolean same = Objects.equals(expected, actual) || expected instanceof RuntimeException
+				&& actual != null && expected.getClass() == actual.getClass();
+		if (!same) {
+			this.failures++;
+			System.out.println("MISMATCH seed " + this.seed + " round " + round + ": " + what);
+			System.out.println("  expected " + abbreviate(expected));
+			System.out.println("  actual   " + abbreviate(actual));
+		}
+	}
+
+	private static String abbreviate(Object o) {
+		String s = String.valueOf(o);
+		return s.length() > 300 ? s.substring(0, 300) + "..." : s;
+	}
+
+	/**
+	 * Returns random distinct lower-case words, some containing {@code qu} and
+	 * some containing {@code q} alone.
+	 */
+	private static List<String> randomWords(Random random, int n) {
+		SortedSet<String> words = new TreeSet<String>();
+		while (words.size() < n) {
+			words.add(randomWord(random, 1 + random.nextInt(9)));
+		}
+		return new ArrayList<String>(words);
+	}
+
+	private static String randomWord(Random random, int length) {
+		StringBuilder sb = new StringBuilder();
+		while (sb.length() < length) {
+			if (random.nextInt(40) == 0) {
+				sb.append("qu");
+			} else {
+				sb.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns random queries: words of the dictionary, words one edit away from
+	 * them, prefixes of them, and random strings.
+	 */
+	private static List<String> randomQueries(Random random, List<String> words, int n) {
+		List<String> queries = new ArrayList<String>(n);
+		for (int i = 0; i < n; i++) {
+			String w = words.get(random.nextInt(words.size()));
+			char c = LETTERS.charAt(random.nextInt(LETTERS.length()));
+			int at = random.nextInt(w.length());
+			switch (random.nextInt(6)) {
+			case 0:
+				queries.add(w + c);
+				break;
+			case 1:
+				queries.add(w.substring(0, at) + c + w.substring(at + 1));
+				break;
+			case 2:
+				queries.add(w.substring(0, at + 1));
+				break;
+			case 3:
+				queries.add(randomWord(random, 1 + random.nextInt(9)));
+				break;
+			default:
+				queries.add(w);
+			}
+		}
+		return queries;
+	}
+
+	/**
+	 * Returns a random board, rolled from the standard dice half of the time and
+	 * made of random letters and {@code qu} faces otherwise.
+	 */
+	private static BoggleBoard randomBoard(Random random) {
+		String[] faces = new String[BoggleBoard.CELLS];
+		boolean standard = random.nextBoolean();
+		for (int i = 0; i < faces.length; i++) {
+			if (standard) {
+				String[] die = BoggleGame.facesOfDie(i);
+				faces[i] = die[random.nextInt(die.length)];
+			} else if (random.nextInt(8) == 0) {
+				faces[i] = "qu";
+			} else {
+				faces[i] = String.valueOf(LETTERS.charAt(random.nextInt(LETTERS.length())));
+			}
+		}
+		for (int i = faces.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			String f = faces[i];
+			faces[i] = faces[j];
+			faces[j] = f;
+		}
+		return new BoggleBoard(faces);
+	}
+
+	/**
+	 * Prints the number of calls, total time and total bytes allocated for every
+	 * engine and operation.
+	 */
+	public void printCosts() {
+		System.out.printf("%-34s %8s %12s %14s%n", "engine", "calls", "ms", "MB allocated");
+		for (Map.Entry<String, long[]> e : this.costs.entrySet()) {
+			long[] c = e.getValue();
+			System.out.printf("%-34s %8d %12.1f %14s%n", e.getKey(), c[0], c[1] / 1e6,
+					this.threads == null ? "n/a" : String.format("%.1f", c[2] / 1e6));
+		}
+		System.out.println(this.checks + " checks, " + this.failures + " mismatches");
+	}
+
+	/**
+	 * Runs the harness and prints the costs of every engine. Exits with status 1
+	 * if any engine disagreed with the reference.
+	 *
+	 * <p>
+	 * The arguments are, in order and all optional: the seed (default 1) and the
+	 * number of rounds (default 20).
+	 *
+	 * @param args the seed and number of rounds
+	 */
+	public static void main(String[] args) {
+		long seed = args.length > 0 ? Long.parseLong(args[0]) : 1;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		DifferentialHarness harness = new DifferentialHarness(seed, rounds);
+		long failures = harness.run();
+		harness.printCosts();
+		if (failures > 0) {
+			System.exit(1);
+		}
+	}
+}
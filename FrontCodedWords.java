@@ -0,0 +1,544 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A read-only, sorted list of words stored front coded in a single byte
+ * buffer. Sorted words share long prefixes with the word before them, so each
+ * word is stored as the number of leading bytes it shares with the previous
+ * word followed by the rest of its bytes. Every 16th word starts a new block and
+ * is stored in full, so that any word can be decoded by reading at most one
+ * block, and the blocks can be binary searched by their first word.
+ *
+ * <p>
+ * The buffer holds, in order: a header of three {@code int}s (a magic number,
+ * the number of words, and the number of blocks), the offset of every block
+ * from the start of the block data, and the block data. Lengths in the block
+ * data are stored as variable-length integers, 7 bits per byte. Words are
+ * stored as UTF-8 and compared byte by byte, which is the same order as
+ * {@code String.compareTo} for the letters used in the dictionary.
+ *
+ * <p>
+ * Because all of the state is in the buffer, the list can be kept in a heap
+ * array or in memory mapped from a file. All reads use absolute positions, so
+ * one list can be read by many threads at once.
+ */
+public class FrontCodedWords extends AbstractList<String> implements RandomAccess {
+
+	/**
+	 * The number of words in each block.
+	 */
+	public static final int BLOCK = 16;
+
+	/**
+	 * The first {@code int} of every buffer holding front-coded words.
+	 */
+	static final int MAGIC = 0x46435731;
+
+	private static final int HEADER_BYTES = 12;
+
+	private final ByteBuffer data;
+	private final int size;
+	private final int blocks;
+	private final int dataStart;
+
+	/**
+	 * Initializes a list holding the specified words, which must be sorted.
+	 *
+	 * @param sorted the words of the list in sorted order
+	 */
+	public FrontCodedWords(List<String> sorted) {
+		this(ByteBuffer.wrap(encode(sorted)));
+	}
+
+	/**
+	 * Initializes a list over a buffer already holding front-coded words, such as
+	 * one returned by {@link #buffer()}.
+	 *
+	 * @param buffer a buffer holding front-coded words, starting at index 0
+	 * @throws IllegalArgumentException if the buffer does not hold front-coded
+	 *                                  words
+	 */
+	public FrontCodedWords(ByteBuffer buffer) {
+		if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+			throw new IllegalArgumentException("buffer does not hold front-coded words");
+		}
+		this.data = buffer;
+		this.size = buffer.getInt(4);
+		this.blocks = buffer.getInt(8);
+		this.dataStart = HEADER_BYTES + 4 * this.blocks;
+		if (this.size < 0 || this.blocks != (this.size + BLOCK - 1) / BLOCK || this.dataStart > buffer.limit()) {
+			throw new IllegalArgumentException("buffer does not hold front-coded words");
+		}
+	}
+
+	/**
+	 * Encodes sorted words in the layout described above.
+	 *
+	 * @param sorted the words in sorted order
+	 * @return the encoded words
+	 */
+	private static byte[] encode(List<String> sorted) {
+		int n = sorted.size();
+		int blocks = (n + BLOCK - 1) / BLOCK;
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int[] offsets = new int[blocks];
+		byte[] previous = new byte[0];
+		int i = 0;
+		for (String w : sorted) {
+			byte[] bytes = w.getBytes(StandardCharsets.UTF_8);
+			if (i % BLOCK == 0) {
+				offsets[i / BLOCK] = out.size();
+				writeVarInt(out, bytes.length);
+				out.write(bytes, 0, bytes.length);
+			} else {
+				int prefix = Arrays.mismatch(previous, bytes);
+				if (prefix < 0) {
+					prefix = bytes.length;
+				}
+				writeVarInt(out, prefix);
+				writeVarInt(out, bytes.length - prefix);
+				out.write(bytes, prefix, bytes.length - prefix);
+			}
+			previous = bytes;
+			i++;
+		}
+		ByteBuffer result = ByteBuffer.allocate(HEADER_BYTES + 4 * blocks + out.size());
+		result.putInt(MAGIC).putInt(n).putInt(blocks);
+		for (int offset : offsets) {
+			result.putInt(offset);
+		}
+		result.put(out.toByteArray());
+		return result.array();
+	}
+
+	/**
+	 * Writes a non-negative integer 7 bits at a time, low bits first, setting the
+	 * top bit of every byte except the last.
+	 */
+	private static void writeVarInt(ByteArrayOutputStream out, int v) {
+		while (v >= 0x80) {
+			out.write((v & 0x7F) | 0x80);
+			v >>>= 7;
+		}
+		out.write(v);
+	}
+
+	/**
+	 * Maps a file written by {@link #write(Path)} into memory read-only and
+	 * returns a list over the mapping. The words are read straight from the
+	 * mapped pages, so they take no heap space, and every process that maps the
+	 * same file shares one copy of the pages through the operating system's page
+	 * cache.
+	 *
+	 * @param file a file of front-coded words
+	 * @return a list of the words in the file
+	 * @throws IOException              if the file cannot be opened or mapped
+	 * @throws IllegalArgumentException if the file does not hold front-coded
+	 *                                  words
+	 */
+	public static FrontCodedWords map(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return new FrontCodedWords(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Writes the words to a file that can be mapped with {@link #map(Path)}. The
+	 * words are written to a temporary file next to the file, which is then moved
+	 * into place, so a process mapping the file sees either the old words or the
+	 * new ones; processes that already mapped the old file keep reading it.
+	 *
+	 * @param file the file to write
+	 * @throws IOException if the file cannot be written
+	 */
+	public void write(Path file) throws IOException {
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer b = this.buffer();
+			b.clear();
+			while (b.hasRemaining()) {
+				channel.write(b);
+			}
+			channel.force(true);
+		}
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Returns the buffer holding the words. The buffer must not be modified.
+	 *
+	 * @return the buffer holding the words
+	 */
+	public ByteBuffer buffer() {
+		return this.data.duplicate();
+	}
+
+	/**
+	 * Returns the number of words in the list.
+	 *
+	 * @return the number of words in the list
+	 */
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the word at the specified index, decoding at most one block.
+	 *
+	 * @param index the index of a word
+	 * @return the word at the index
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	@Override
+	public String get(int index) {
+		if (index < 0 || index >= this.size) {
+			throw new IndexOutOfBoundsException("index " + index + " out of range for size " + this.size);
+		}
+		Cursor c = new Cursor(index / BLOCK);
+		while (c.index < index) {
+			c.advance();
+		}
+		return c.word();
+	}
+
+	/**
+	 * Returns true if the list contains the specified word.
+	 *
+	 * @param o an object
+	 * @return true if the object is a word in the list
+	 */
+	@Override
+	public boolean contains(Object o) {
+		return this.indexOf(o) >= 0;
+	}
+
+	/**
+	 * Returns the index of the specified word using a binary search over the
+	 * blocks followed by a scan of one block.
+	 *
+	 * @param o an object
+	 * @return the index of the word, or -1 if it is not in the list
+	 */
+	@Override
+	public int indexOf(Object o) {
+		if (!(o instanceof String)) {
+			return -1;
+		}
+		int i = this.search(((String) o).getBytes(StandardCharsets.UTF_8));
+		return i >= 0 ? i : -1;
+	}
+
+	/**
+	 * Returns the index of the first word in the list that is not less than the
+	 * specified word.
+	 *
+	 * @param word a word
+	 * @return the index of the first word not less than the word, or
+	 *         {@code size()} if there is none
+	 */
+	public int lowerBound(String word) {
+		int i = this.search(word.getBytes(StandardCharsets.UTF_8));
+		return i >= 0 ? i : -i - 1;
+	}
+
+	/**
+	 * Returns true if any word in the list starts with the specified prefix. The
+	 * words are compared in place, without decoding them into strings.
+	 *
+	 * @param prefix a prefix
+	 * @return true if a word in the list starts with the prefix
+	 */
+	public boolean containsPrefix(String prefix) {
+		byte[] key = prefix.getBytes(StandardCharsets.UTF_8);
+		int i = this.search(key);
+		if (i >= 0) {
+			return true;
+		}
+		i = -i - 1;
+		if (i == this.size) {
+			return false;
+		}
+		Cursor c = new Cursor(i / BLOCK);
+		while (c.index < i) {
+			c.advance();
+		}
+		return c.length >= key.length && Arrays.equals(c.bytes, 0, key.length, key, 0, key.length);
+	}
+
+	/**
+	 * Searches the list for a word.
+	 *
+	 * @param key the UTF-8 bytes of a word
+	 * @return the index of the word if it is in the list, and otherwise
+	 *         {@code -(i + 1)} where {@code i} is the index the word would have
+	 */
+	private int search(byte[] key) {
+		int low = 0;
+		int high = this.blocks - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int cmp = this.compareFirst(mid, key);
+			if (cmp < 0) {
+				low = mid + 1;
+			} else if (cmp > 0) {
+				high = mid - 1;
+			} else {
+				return mid * BLOCK;
+			}
+		}
+		if (high < 0) {
+			return -1;
+		}
+		Cursor c = new Cursor(high);
+		int end = Math.min(this.size, (high + 1) * BLOCK);
+		while (true) {
+			int cmp = compare(c.bytes, c.length, key);
+			if (cmp == 0) {
+				return c.index;
+			} else if (cmp > 0) {
+				return -c.index - 1;
+			}
+			if (c.index + 1 == end) {
+				return -end - 1;
+			}
+			c.advance();
+		}
+	}
+
+	/**
+	 * Returns the words in the list that start with the same {@code prefixLength}
+	 * bytes as the specified word, have the same length, and differ from it in at
+	 * most {@code maxDistance} bytes. The words with the prefix are found with one
+	 * search and then compared in place as they are decoded, so only the matching
+	 * words are turned into strings. For words made of ASCII letters, comparing
+	 * bytes is the same as comparing letters.
+	 *
+	 * @param word         a word
+	 * @param prefixLength the number of leading bytes the words must share with
+	 *                     the word
+	 * @param maxDistance  the largest number of bytes in which the words may
+	 *                     differ from the word
+	 * @return the matching words in sorted order
+	 * @throws IllegalArgumentException if {@code prefixLength} is longer than the
+	 *                                  word
+	 */
+	public List<String> similarWords(String word, int prefixLength, int maxDistance) {
+		List<String> similar = new ArrayList<String>();
+		this.similarWords(word, prefixLength, maxDistance, (w, i) -> similar.add(w));
+		return similar;
+	}
+
+	/**
+	 * Passes each word returned by {@link #similarWords(String, int, int)} to an
+	 * action, in sorted order, together with its index in the list.
+	 *
+	 * @param word         a word
+	 * @param prefixLength the number of leading bytes the words must share with
+	 *                     the word
+	 * @param maxDistance  the largest number of bytes in which the words may
+	 *                     differ from the word
+	 * @param action       the action to pass each matching word and its index to
+	 * @throws IllegalArgumentException if {@code prefixLength} is longer than the
+	 *                                  word
+	 */
+	public void similarWords(String word, int prefixLength, int maxDistance, ObjIntConsumer<String> action) {
+		byte[] key = word.getBytes(StandardCharsets.UTF_8);
+		if (prefixLength < 0 || prefixLength > key.length) {
+			throw new IllegalArgumentException("prefix is longer than the word");
+		}
+		int from = this.search(Arrays.copyOf(key, prefixLength));
+		from = from >= 0 ? from : -from - 1;
+		if (from == this.size) {
+			return;
+		}
+		Cursor c = new Cursor(from / BLOCK);
+		while (c.index < from) {
+			c.advance();
+		}
+		while (c.length >= prefixLength && Arrays.equals(c.bytes, 0, prefixLength, key, 0, prefixLength)) {
+			if (c.length == key.length) {
+				int distance = 0;
+				for (int i = prefixLength; i < key.length && distance <= maxDistance; i++) {
+					if (c.bytes[i] != key[i]) {
+						distance++;
+					}
+				}
+				if (distance <= maxDistance) {
+					action.accept(c.word(), c.index);
+				}
+			}
+			if (c.index + 1 == this.size) {
+				break;
+			}
+			c.advance();
+		}
+	}
+
+	/**
+	 * Compares the first word of a block with a key without copying the word.
+	 *
+	 * @param block the index of a block
+	 * @param key   the UTF-8 bytes of a word
+	 * @return a negative number, zero, or a positive number as the first word of
+	 *         the block is less than, equal to, or greater than the key
+	 */
+	private int compareFirst(int block, byte[] key) {
+		int pos = this.dataStart + this.data.getInt(HEADER_BYTES + 4 * block);
+		int length = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = this.data.get(pos++);
+			length |= (b & 0x7F) << shift;
+			shift += 7;
+		} while (b < 0);
+		int n = Math.min(length, key.length);
+		for (int i = 0; i < n; i++) {
+			int cmp = Integer.compare(this.data.get(pos + i) & 0xFF, key[i] & 0xFF);
+			if (cmp != 0) {
+				return cmp;
+			}
+		}
+		return Integer.compare(length, key.length);
+	}
+
+	/**
+	 * Compares the first {@code length} bytes of {@code a} with {@code key} as
+	 * unsigned bytes.
+	 */
+	private static int compare(byte[] a, int length, byte[] key) {
+		return Arrays.compareUnsigned(a, 0, length, key, 0, key.length);
+	}
+
+	/**
+	 * Returns an iterator over the words of the list in order.
+	 *
+	 * @return an iterator over the words of the list
+	 */
+	@Override
+	public Iterator<String> iterator() {
+		return this.iterator(0);
+	}
+
+	/**
+	 * Returns an iterator over the words of the list in order, starting at the
+	 * specified index. The iterator decodes the words one after another, so
+	 * iterating over the list costs the same per word as reading an array.
+	 *
+	 * @param from the index of the first word to return
+	 * @return an iterator over the words of the list starting at the index
+	 * @throws IndexOutOfBoundsException if {@code from} is out of range
+	 */
+	public Iterator<String> iterator(int from) {
+		if (from < 0 || from > this.size) {
+			throw new IndexOutOfBoundsException("index " + from + " out of range for size " + this.size);
+		}
+		return new Iterator<String>() {
+			private Cursor cursor = null;
+			private int next = from;
+
+			@Override
+			public boolean hasNext() {
+				return this.next < FrontCodedWords.this.size;
+			}
+
+			@Override
+			public String next() {
+				if (!this.hasNext()) {
+					throw new NoSuchElementException();
+				}
+				if (this.cursor == null) {
+					this.cursor = new Cursor(this.next / BLOCK);
+				}
+				while (this.cursor.index < this.next) {
+					this.cursor.advance();
+				}
+				this.next++;
+				return this.cursor.word();
+			}
+		};
+	}
+
+	/**
+	 * A position in the list that decodes the words one after another.
+	 */
+	private class Cursor {
+		int index;
+		int pos;
+		byte[] bytes;
+		int length;
+
+		/**
+		 * Positions the cursor at the first word of a block.
+		 */
+		Cursor(int block) {
+			this.bytes = new byte[32];
+			this.start(block);
+		}
+
+		private void start(int block) {
+			this.index = block * BLOCK;
+			this.pos = FrontCodedWords.this.dataStart + FrontCodedWords.this.data.getInt(HEADER_BYTES + 4 * block);
+			this.read(0, this.readVarInt());
+		}
+
+		/**
+		 * Moves the cursor to the next word.
+		 */
+		void advance() {
+			if ((this.index + 1) % BLOCK == 0) {
+				this.start((this.index + 1) / BLOCK);
+				return;
+			}
+			this.index++;
+			int prefix = this.readVarInt();
+			this.read(prefix, this.readVarInt());
+		}
+
+		/**
+		 * Reads {@code n} bytes of the current word after its first {@code prefix}
+		 * bytes.
+		 */
+		private void read(int prefix, int n) {
+			this.length = prefix + n;
+			if (this.length > this.bytes.length) {
+				this.bytes = Arrays.copyOf(this.bytes, Math.max(this.length, 2 * this.bytes.length));
+			}
+			FrontCodedWords.this.data.get(this.pos, this.bytes, prefix, n);
+			this.pos += n;
+		}
+
+		private int readVarInt() {
+			int v = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = FrontCodedWords.this.data.get(this.pos++);
+				v |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			return v;
+		}
+
+		String word() {
+			return new String(this.bytes, 0, this.length, StandardCharsets.UTF_8);
+		}
+	}
+}
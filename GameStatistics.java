@@ -0,0 +1,212 @@
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Leaderboards and statistics gathered from finished rounds. The global
+ * statistics use a fixed amount of memory no matter how many rounds are
+ * recorded:
+ *
+ * <ul>
+ * <li>the top scores are kept in a {@code TopKHeap}</li>
+ * <li>the number of times each word has been found is estimated by a
+ * {@code CountMinSketch}, and the most-found words are kept in a
+ * {@code TopKHeap} ranked by that estimate</li>
+ * <li>the number of words each player finds in a round, and the number of
+ * different words found on each board, are kept in {@code LogHistogram}s for
+ * percentiles</li>
+ * </ul>
+ *
+ * <p>
+ * Per-player totals are kept in a concurrent map with one small entry per
+ * player. Rounds can be recorded from many threads at once, and a snapshot can
+ * be taken at any time without stopping them.
+ */
+public class GameStatistics {
+
+	private static final int SKETCH_DEPTH = 4;
+	private static final int SKETCH_WIDTH = 1 << 16;
+
+	private final LongAdder rounds;
+	private final TopKHeap topScores;
+	private final CountMinSketch wordCounts;
+	private final TopKHeap topWords;
+	private final LogHistogram wordsPerPlayer;
+	private final LogHistogram wordsPerBoard;
+	private final ConcurrentHashMap<String, PlayerTotals> players;
+
+	/**
+	 * The running totals of one player.
+	 */
+	private static class PlayerTotals {
+		final LongAdder rounds = new LongAdder();
+		final LongAdder score = new LongAdder();
+		final LongAdder words = new LongAdder();
+		final AtomicInteger best = new AtomicInteger();
+	}
+
+	/**
+	 * Initializes empty statistics.
+	 *
+	 * @param k the number of top scores and most-found words to keep
+	 * @throws IllegalArgumentException if {@code k < 1}
+	 */
+	public GameStatistics(int k) {
+		this.rounds = new LongAdder();
+		this.topScores = new TopKHeap(k);
+		this.wordCounts = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+		this.topWords = new TopKHeap(k);
+		this.wordsPerPlayer = new LogHistogram();
+		this.wordsPerBoard = new LogHistogram();
+		this.players = new ConcurrentHashMap<String, PlayerTotals>();
+	}
+
+	/**
+	 * Adds a finished round to the statistics. A top score is listed under the
+	 * name of the player followed by {@code #} and the ID of the round.
+	 *
+	 * @param round a finished round
+	 */
+	public void record(RoundRecord round) {
+		this.rounds.increment();
+		Set<String> boardWords = new HashSet<String>();
+		for (RoundRecord.Player p : round.players()) {
+			this.topScores.offer(p.name() + "#" + round.roundId(), p.score());
+			this.wordsPerPlayer.record(p.wordCount());
+			for (int i = 0; i < p.wordCount(); i++) {
+				String w = p.word(i);
+				boardWords.add(w);
+				this.topWords.offer(w, this.wordCounts.add(w, 1));
+			}
+			PlayerTotals totals = this.players.computeIfAbsent(p.name(), n -> new PlayerTotals());
+			totals.rounds.increment();
+			totals.score.add(p.score());
+			totals.words.add(p.wordCount());
+			totals.best.accumulateAndGet(p.score(), Math::max);
+		}
+		this.wordsPerBoard.record(boardWords.size());
+	}
+
+	/**
+	 * Returns the estimated number of times a word has been found, counting each
+	 * player who found it.
+	 *
+	 * @param word a word
+	 * @return the estimated number of times the word has been found
+	 */
+	public long timesFound(String word) {
+		return this.wordCounts.estimate(word);
+	}
+
+	/**
+	 * Returns the totals of one player: the number of rounds played, the total
+	 * score, the total number of words found, and the best score in a round.
+	 *
+	 * @param name the name of a player
+	 * @return an array of the rounds, total score, words, and best score of the
+	 *         player, or null if the player has not played
+	 */
+	public long[] player(String name) {
+		PlayerTotals t = this.players.get(name);
+		if (t == null) {
+			return null;
+		}
+		return new long[] { t.rounds.sum(), t.score.sum(), t.words.sum(), t.best.get() };
+	}
+
+	/**
+	 * Returns a snapshot of the global statistics.
+	 *
+	 * @return a snapshot of the global statistics
+	 */
+	public Snapshot snapshot() {
+		return new Snapshot(this.rounds.sum(), this.players.size(), this.topScores.top(), this.topWords.top(),
+				this.wordsPerPlayer.copy(), this.wordsPerBoard.copy());
+	}
+
+	/**
+	 * A snapshot of the global statistics. Later rounds do not change a snapshot.
+	 */
+	public static class Snapshot {
+		private final long rounds;
+		private final int players;
+		private final List<Map.Entry<String, Long>> topScores;
+		private final List<Map.Entry<String, Long>> topWords;
+		private final LogHistogram wordsPerPlayer;
+		private final LogHistogram wordsPerBoard;
+
+		Snapshot(long rounds, int players, List<Map.Entry<String, Long>> topScores,
+				List<Map.Entry<String, Long>> topWords, LogHistogram wordsPerPlayer, LogHistogram wordsPerBoard) {
+			this.rounds = rounds;
+			this.players = players;
+			this.topScores = topScores;
+			this.topWords = topWords;
+			this.wordsPerPlayer = wordsPerPlayer;
+			this.wordsPerBoard = wordsPerBoard;
+		}
+
+		/**
+		 * Returns the number of rounds recorded.
+		 *
+		 * @return the number of rounds recorded
+		 */
+		public long rounds() {
+			return this.rounds;
+		}
+
+		/**
+		 * Returns the number of different players recorded.
+		 *
+		 * @return the number of different players recorded
+		 */
+		public int players() {
+			return this.players;
+		}
+
+		/**
+		 * Returns the top scores, highest first, each listed as the name of the player
+		 * and the ID of the round separated by {@code #}.
+		 *
+		 * @return the top scores
+		 */
+		public List<Map.Entry<String, Long>> topScores() {
+			return this.topScores;
+		}
+
+		/**
+		 * Returns the most-found words with the estimated number of times each was
+		 * found, most-found first.
+		 *
+		 * @return the most-found words
+		 */
+		public List<Map.Entry<String, Long>> topWords() {
+			return this.topWords;
+		}
+
+		/**
+		 * Returns an estimate of a quantile of the number of words a player found in a
+		 * round.
+		 *
+		 * @param q a quantile between 0 and 1
+		 * @return an estimate of the quantile, or -1 if no round has been recorded
+		 */
+		public long wordsPerPlayer(double q) {
+			return this.wordsPerPlayer.quantile(q);
+		}
+
+		/**
+		 * Returns an estimate of a quantile of the number of different words found on
+		 * the board of a round.
+		 *
+		 * @param q a quantile between 0 and 1
+		 * @return an estimate of the quantile, or -1 if no round has been recorded
+		 */
+		public long wordsPerBoard(double q) {
+			return this.wordsPerBoard.quantile(q);
+		}
+	}
+}
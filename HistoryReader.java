@@ -0,0 +1,296 @@
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Reads a game history file written by a {@code HistoryWriter}. Records are
+ * read one after another through a large buffer, so a whole file can be
+ * replayed at close to the speed of the disk. The reader can also seek to a
+ * round by its ID using the index file written next to the history file.
+ *
+ * <p>
+ * Every record is checked against its checksum. A record cut off by the end of
+ * the file, which is what a crash in the middle of a write leaves behind, ends
+ * the history. A complete record that is damaged is reported with a
+ * {@code CorruptHistoryException}, and the reader can skip past it to the next
+ * record listed in the index.
+ */
+public class HistoryReader implements Closeable {
+
+	private static final int BUFFER_BYTES = 1 << 20;
+
+	/**
+	 * The number of records checked at once by {@code audit}.
+	 */
+	private static final int AUDIT_BATCH = 1024;
+
+	private final Path file;
+	private final FileChannel log;
+	private ByteBuffer buffer;
+	private long offset;
+	private final CRC32 crc;
+
+	/**
+	 * Opens a history file for reading, positioned at the first record.
+	 *
+	 * @param file the history file
+	 * @throws IOException if the file cannot be opened
+	 */
+	public HistoryReader(Path file) throws IOException {
+		this.file = file;
+		this.log = FileChannel.open(file, StandardOpenOption.READ);
+		this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+		this.buffer.flip();
+		this.offset = 0;
+		this.crc = new CRC32();
+	}
+
+	/**
+	 * Returns the offset in the file of the next record to be read.
+	 *
+	 * @return the offset of the next record
+	 */
+	long offset() {
+		return this.offset;
+	}
+
+	/**
+	 * Positions the reader at the record starting at the specified offset.
+	 *
+	 * @param offset the offset of a record in the file
+	 */
+	void position(long offset) {
+		this.offset = offset;
+		this.buffer.clear();
+		this.buffer.flip();
+	}
+
+	/**
+	 * Makes sure that at least {@code n} unread bytes are in the buffer, reading
+	 * more of the file if necessary.
+	 *
+	 * @param n the number of bytes needed
+	 * @return true if the bytes are available, and false if the file ends first
+	 * @throws IOException if the file cannot be read
+	 */
+	private boolean fill(int n) throws IOException {
+		if (this.buffer.remaining() >= n) {
+			return true;
+		}
+		if (n > this.buffer.capacity()) {
+			ByteBuffer bigger = ByteBuffer.allocateDirect(Integer.highestOneBit(n - 1) << 1);
+			bigger.put(this.buffer);
+			this.buffer = bigger;
+		} else {
+			this.buffer.compact();
+		}
+		long filePosition = this.offset + this.buffer.position();
+		while (this.buffer.position() < n) {
+			int read = this.log.read(this.buffer, filePosition);
+			if (read < 0) {
+				break;
+			}
+			filePosition += read;
+		}
+		this.buffer.flip();
+		return this.buffer.remaining() >= n;
+	}
+
+	/**
+	 * Reads the next record. The position of the reader is unchanged if the
+	 * record is damaged, so that it can be skipped with {@code skipDamaged}.
+	 *
+	 * @return the next record, or null if there are no more records or the next
+	 *         record is cut off by the end of the file
+	 * @throws CorruptHistoryException if the next record is complete but damaged
+	 * @throws IOException             if the file cannot be read
+	 */
+	public RoundRecord next() throws IOException {
+		if (!this.fill(HistoryWriter.HEADER_BYTES)) {
+			return null;
+		}
+		int start = this.buffer.position();
+		int length = this.buffer.getInt(start);
+		int checksum = this.buffer.getInt(start + 4);
+		if (length <= 0 || length > HistoryWriter.MAX_RECORD_BYTES) {
+			throw new CorruptHistoryException(this.offset, "impossible length " + length);
+		}
+		if (!this.fill(HistoryWriter.HEADER_BYTES + length)) {
+			return null;
+		}
+		start = this.buffer.position();
+		byte[] payload = new byte[length];
+		this.buffer.get(start + HistoryWriter.HEADER_BYTES, payload);
+		this.crc.reset();
+		this.crc.update(payload);
+		if ((int) this.crc.getValue() != checksum) {
+			throw new CorruptHistoryException(this.offset, "checksum mismatch");
+		}
+		RoundRecord record;
+		try {
+			record = RoundRecord.read(new DataInputStream(new ByteArrayInputStream(payload)));
+		} catch (IOException | IllegalArgumentException e) {
+			throw new CorruptHistoryException(this.offset, "payload cannot be decoded");
+		}
+		this.buffer.position(start + HistoryWriter.HEADER_BYTES + length);
+		this.offset += HistoryWriter.HEADER_BYTES + length;
+		return record;
+	}
+
+	/**
+	 * Positions the reader at the round with the specified ID, using a binary
+	 * search of the index file.
+	 *
+	 * @param roundId the ID of a round
+	 * @return true if the round was found, and false otherwise (in which case the
+	 *         position of the reader is unchanged)
+	 * @throws IOException if the index file cannot be read
+	 */
+	public boolean seek(long roundId) throws IOException {
+		long[] entry = this.findEntry(0, roundId);
+		if (entry == null || entry[0] != roundId) {
+			return false;
+		}
+		this.position(entry[1]);
+		return true;
+	}
+
+	/**
+	 * Skips the damaged record at the position of the reader, after
+	 * {@code next} has thrown a {@code CorruptHistoryException}, and positions the
+	 * reader at the next record listed in the index, or at the end of the file if
+	 * there is none.
+	 *
+	 * @return the ID of the round whose record was skipped, from the index
+	 * @throws CorruptHistoryException if the index has no entry for a record at
+	 *                                 the position of the reader, so the record
+	 *                                 cannot be identified or skipped
+	 * @throws IOException             if the index file cannot be read
+	 */
+	public long skipDamaged() throws IOException {
+		long[] damaged = this.findEntry(1, this.offset);
+		if (damaged == null || damaged[1] != this.offset) {
+			throw new CorruptHistoryException(this.offset, "record is not in the index");
+		}
+		long[] next = this.findEntry(1, this.offset + 1);
+		this.position(next != null ? next[1] : this.log.size());
+		return damaged[0];
+	}
+
+	/**
+	 * Returns the first entry of the index file whose round ID (if
+	 * {@code field} is 0) or offset (if {@code field} is 1) is at least the
+	 * specified key, using a binary search; both are increasing through the
+	 * index.
+	 *
+	 * @param field 0 to search by round ID, or 1 to search by offset
+	 * @param key   the round ID or offset to search for
+	 * @return the round ID and offset of the entry, or null if there is none or
+	 *         there is no index file
+	 * @throws IOException if the index file cannot be read
+	 */
+	private long[] findEntry(int field, long key) throws IOException {
+		Path indexFile = HistoryWriter.indexFile(this.file);
+		if (!Files.exists(indexFile)) {
+			return null;
+		}
+		try (FileChannel index = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+			ByteBuffer entry = ByteBuffer.allocate(HistoryWriter.INDEX_ENTRY_BYTES);
+			long low = 0;
+			long high = index.size() / HistoryWriter.INDEX_ENTRY_BYTES;
+			while (low < high) {
+				long mid = (low + high) >>> 1;
+				readEntry(index, mid, entry);
+				if (entry.getLong(8 * field) < key) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			if (low == index.size() / HistoryWriter.INDEX_ENTRY_BYTES) {
+				return null;
+			}
+			readEntry(index, low, entry);
+			return new long[] { entry.getLong(0), entry.getLong(8) };
+		}
+	}
+
+	/**
+	 * Reads the entry at the specified position of the index file.
+	 */
+	private static void readEntry(FileChannel index, long i, ByteBuffer entry) throws IOException {
+		entry.clear();
+		while (entry.hasRemaining()) {
+			if (index.read(entry, i * HistoryWriter.INDEX_ENTRY_BYTES + entry.position()) < 0) {
+				throw new IOException("index file ends in the middle of an entry");
+			}
+		}
+	}
+
+	/**
+	 * Reads the rest of the file and checks every record again with
+	 * {@link RoundRecord#isValid(BoggleDictionary)}. Records are read in order and
+	 * checked in parallel in batches. Damaged records are skipped with
+	 * {@code skipDamaged} and reported as invalid, so the rest of the file is
+	 * still checked.
+	 *
+	 * @param dictionary the dictionary to check words against
+	 * @return the IDs of the rounds whose records are damaged or not valid, in
+	 *         file order
+	 * @throws CorruptHistoryException if a damaged record is not in the index
+	 * @throws IOException             if the file cannot be read
+	 */
+	public List<Long> audit(BoggleDictionary dictionary) throws IOException {
+		List<Long> invalid = new ArrayList<Long>();
+		List<RoundRecord> batch = new ArrayList<RoundRecord>(AUDIT_BATCH);
+		while (true) {
+			RoundRecord record;
+			try {
+				record = this.next();
+			} catch (CorruptHistoryException e) {
+				audit(batch, dictionary, invalid);
+				invalid.add(this.skipDamaged());
+				continue;
+			}
+			if (record == null) {
+				break;
+			}
+			batch.add(record);
+			if (batch.size() == AUDIT_BATCH) {
+				audit(batch, dictionary, invalid);
+			}
+		}
+		audit(batch, dictionary, invalid);
+		return invalid;
+	}
+
+	/**
+	 * Checks a batch of records in parallel, adds the IDs of the invalid ones to
+	 * {@code invalid}, and empties the batch.
+	 */
+	private static void audit(List<RoundRecord> batch, BoggleDictionary dictionary, List<Long> invalid) {
+		invalid.addAll(batch.parallelStream().filter(r -> !r.isValid(dictionary)).map(RoundRecord::roundId)
+				.collect(Collectors.toList()));
+		batch.clear();
+	}
+
+	/**
+	 * Closes the history file.
+	 *
+	 * @throws IOException if the file cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		this.log.close();
+	}
+}
@@ -0,0 +1,254 @@
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Appends finished rounds to a game history file. The history file is an
+ * append-only log of records; each record is the length of its payload, a
+ * CRC-32 checksum of the payload, and the payload written by
+ * {@link RoundRecord}. Next to the history file is an index file with one
+ * entry per record (the round ID and the offset of the record), which lets a
+ * {@code HistoryReader} seek to a round without reading the whole log. Round
+ * IDs must be appended in increasing order so that the index stays sorted.
+ *
+ * <p>
+ * Records are collected in memory and written to the file in large blocks, so
+ * appending a record only costs the time to encode it. Call {@code flush} to
+ * hand the collected records to the operating system and {@code sync} to force
+ * them to the disk.
+ *
+ * <p>
+ * When a history file is opened, the writer checks the records after the last
+ * index entry and drops anything left behind by a crash in the middle of a
+ * write: a record that is incomplete or fails its checksum, and everything
+ * after it, is truncated, and missing index entries are added back.
+ */
+public class HistoryWriter implements Closeable {
+
+	/**
+	 * The number of bytes before the payload of a record.
+	 */
+	static final int HEADER_BYTES = 8;
+
+	/**
+	 * The largest payload of a record.
+	 */
+	static final int MAX_RECORD_BYTES = 1 << 24;
+
+	/**
+	 * The number of bytes of an index entry.
+	 */
+	static final int INDEX_ENTRY_BYTES = 16;
+
+	private static final int BUFFER_BYTES = 1 << 16;
+
+	private final FileChannel log;
+	private final FileChannel index;
+	private final ByteBuffer logBuffer;
+	private final ByteBuffer indexBuffer;
+	private final ByteArrayOutputStream payload;
+	private final DataOutputStream payloadOut;
+	private final CRC32 crc;
+
+	/**
+	 * The offset of the end of the log, including the records not yet written.
+	 */
+	private long end;
+	private long lastRoundId;
+
+	/**
+	 * Opens a history file for appending, creating it if it does not exist and
+	 * repairing it if the last write was interrupted.
+	 *
+	 * @param file the history file
+	 * @throws IOException if the file cannot be opened or repaired
+	 */
+	public HistoryWriter(Path file) throws IOException {
+		this.log = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE);
+		this.index = FileChannel.open(indexFile(file), StandardOpenOption.READ, StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE);
+		this.logBuffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+		this.indexBuffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+		this.payload = new ByteArrayOutputStream();
+		this.payloadOut = new DataOutputStream(this.payload);
+		this.crc = new CRC32();
+		this.end = 0;
+		this.lastRoundId = Long.MIN_VALUE;
+		this.recover(file);
+	}
+
+	/**
+	 * Returns the index file of a history file.
+	 *
+	 * @param file a history file
+	 * @return the index file of the history file
+	 */
+	static Path indexFile(Path file) {
+		return file.resolveSibling(file.getFileName() + ".idx");
+	}
+
+	/**
+	 * Finds the last index entry that points at an intact record, then reads the
+	 * records after it, indexing them, until the end of the log or the first
+	 * damaged record. The log and the index are truncated after the last intact
+	 * record.
+	 *
+	 * @param file the history file
+	 * @throws IOException if the files cannot be read or truncated
+	 */
+	private void recover(Path file) throws IOException {
+		ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+		long entries = this.index.size() / INDEX_ENTRY_BYTES;
+		try (HistoryReader reader = new HistoryReader(file)) {
+			while (entries > 0) {
+				entry.clear();
+				this.index.read(entry, (entries - 1) * INDEX_ENTRY_BYTES);
+				long offset = entry.getLong(8);
+				reader.position(offset);
+				RoundRecord record;
+				try {
+					record = entry.hasRemaining() ? null : reader.next();
+				} catch (CorruptHistoryException e) {
+					record = null;
+				}
+				if (record != null && record.roundId() == entry.getLong(0)) {
+					this.lastRoundId = record.roundId();
+					break;
+				}
+				entries--;
+				reader.position(0);
+			}
+			this.index.truncate(entries * INDEX_ENTRY_BYTES);
+			this.index.position(entries * INDEX_ENTRY_BYTES);
+			long offset = reader.offset();
+			while (true) {
+				RoundRecord record;
+				try {
+					record = reader.next();
+				} catch (CorruptHistoryException e) {
+					// a damaged record, and everything after it, is what is truncated
+					record = null;
+				}
+				if (record == null) {
+					break;
+				}
+				this.indexBuffer.putLong(record.roundId());
+				this.indexBuffer.putLong(offset);
+				if (!this.indexBuffer.hasRemaining()) {
+					this.writeIndex();
+				}
+				this.lastRoundId = record.roundId();
+				offset = reader.offset();
+			}
+			this.end = offset;
+		}
+		this.log.truncate(this.end);
+		this.log.position(this.end);
+		this.writeIndex();
+	}
+
+	/**
+	 * Appends a record to the history. The record is written to the file the next
+	 * time the block of collected records fills up, or when {@code flush},
+	 * {@code sync}, or {@code close} is called.
+	 *
+	 * @param record the record to append
+	 * @throws IllegalArgumentException if the ID of the round is not greater than
+	 *                                  the ID of the last round in the history
+	 * @throws IOException              if a full block cannot be written
+	 */
+	public synchronized void append(RoundRecord record) throws IOException {
+		if (record.roundId() <= this.lastRoundId) {
+			throw new IllegalArgumentException("round IDs must be increasing");
+		}
+		this.payload.reset();
+		record.write(this.payloadOut);
+		this.payloadOut.flush();
+		byte[] bytes = this.payload.toByteArray();
+		if (bytes.length > MAX_RECORD_BYTES) {
+			throw new IllegalArgumentException("record is too large");
+		}
+		this.crc.reset();
+		this.crc.update(bytes);
+		if (this.logBuffer.remaining() < HEADER_BYTES + bytes.length) {
+			this.flush();
+		}
+		if (this.logBuffer.remaining() < HEADER_BYTES + bytes.length) {
+			ByteBuffer large = ByteBuffer.allocate(HEADER_BYTES + bytes.length);
+			large.putInt(bytes.length).putInt((int) this.crc.getValue()).put(bytes).flip();
+			while (large.hasRemaining()) {
+				this.log.write(large);
+			}
+		} else {
+			this.logBuffer.putInt(bytes.length).putInt((int) this.crc.getValue()).put(bytes);
+		}
+		if (!this.indexBuffer.hasRemaining()) {
+			this.flush();
+		}
+		this.indexBuffer.putLong(record.roundId()).putLong(this.end);
+		this.end += HEADER_BYTES + bytes.length;
+		this.lastRoundId = record.roundId();
+	}
+
+	/**
+	 * Writes the collected records to the history file, and then their entries to
+	 * the index file, so that the index never points past the end of the log.
+	 *
+	 * @throws IOException if the files cannot be written
+	 */
+	public synchronized void flush() throws IOException {
+		this.logBuffer.flip();
+		while (this.logBuffer.hasRemaining()) {
+			this.log.write(this.logBuffer);
+		}
+		this.logBuffer.clear();
+		this.writeIndex();
+	}
+
+	/**
+	 * Writes the collected index entries to the index file.
+	 *
+	 * @throws IOException if the index file cannot be written
+	 */
+	private void writeIndex() throws IOException {
+		this.indexBuffer.flip();
+		while (this.indexBuffer.hasRemaining()) {
+			this.index.write(this.indexBuffer);
+		}
+		this.indexBuffer.clear();
+	}
+
+	/**
+	 * Writes the collected records and forces the history and index files to the
+	 * disk.
+	 *
+	 * @throws IOException if the files cannot be written
+	 */
+	public synchronized void sync() throws IOException {
+		this.flush();
+		this.log.force(false);
+		this.index.force(false);
+	}
+
+	/**
+	 * Writes the collected records and closes the history and index files.
+	 *
+	 * @throws IOException if the files cannot be written or closed
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			this.flush();
+		} finally {
+			this.log.close();
+			this.index.close();
+		}
+	}
+}
@@ -0,0 +1,360 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Keeps the legal Boggle words on a board, and their total score, up to date
+ * as single cells of the board change, without solving the whole board again.
+ *
+ * <p>
+ * The solver keeps every path on the board whose letters start a word in the
+ * trie, as the trie node the path reaches, the bitmask of the cells it uses,
+ * and its last cell, together with the number of paths that spell each word.
+ * The paths form a tree, in which the children of a path are the paths one
+ * cell longer that start with it, and every cell has a list of the paths that
+ * end in it. Every path through a cell is a path that ends in the cell or one
+ * of its descendants, so when a cell changes, the paths on its list are dropped
+ * with their subtrees, and new paths are grown into the cell from the paths
+ * that end next to it and do not use it, which is every new path through the
+ * cell. Paths that do not touch the cell or its neighbors are never visited, so
+ * a change costs about as much as the paths it drops and adds, instead of a
+ * full walk of the board down the trie.
+ *
+ * <p>
+ * A dropped path is not removed from the list of its last cell straight away.
+ * Every path has a slot, and every list entry records the slot together with
+ * the generation of the slot when the entry was made; freeing a slot starts a
+ * new generation, which marks the old entry stale. Stale entries are removed
+ * when a list is walked or is about to grow.
+ *
+ * <p>
+ * Only the number of paths spelling each word is kept up to date, in a table
+ * of the trie nodes of the words on the board; the words themselves are
+ * spelled out from the trie when {@link #words()} is called. Nothing the solver
+ * keeps grows with the size of the trie.
+ *
+ * <p>
+ * A solver is not thread-safe.
+ */
+public class IncrementalSolver {
+
+	private final WordTrie trie;
+
+	private final String[] faces;
+
+	/**
+	 * The path in each slot: the trie node it reaches, the bitmask of its cells
+	 * in the low 16 bits with its last cell above them, the slot of the path it
+	 * extends, or -1, and the first of its children and the next of its
+	 * siblings, or -1. For a free slot, the node is -1 and the path is the next
+	 * free slot, or -1.
+	 */
+	private int[] nodes;
+	private int[] paths;
+	private int[] parents;
+	private int[] children;
+	private int[] siblings;
+	private int[] generations;
+	private int slots;
+	private int free;
+	private int count;
+
+	/**
+	 * For each cell, the entries of the paths that end in it. An entry is a
+	 * generation in the high 32 bits and a slot in the low 32 bits.
+	 */
+	private final long[][] ending;
+	private final int[] endingCount;
+
+	/**
+	 * For the trie node of each word on the board, the number of kept paths that
+	 * spell the word.
+	 */
+	private final NodeCounts spellings;
+
+	/**
+	 * The words on the board, or null if they have changed since they were last
+	 * built.
+	 */
+	private SortedSet<String> words;
+	private int score;
+
+	/**
+	 * Initializes a solver for the words in the specified trie and solves the
+	 * specified board.
+	 *
+	 * @param trie  the words to look for
+	 * @param board the board to start from
+	 */
+	public IncrementalSolver(WordTrie trie, BoggleBoard board) {
+		this.trie = trie;
+		this.faces = board.faces();
+		this.nodes = new int[256];
+		this.paths = new int[256];
+		this.parents = new int[256];
+		this.children = new int[256];
+		this.siblings = new int[256];
+		this.generations = new int[256];
+		this.slots = 0;
+		this.free = -1;
+		this.count = 0;
+		this.ending = new long[BoggleBoard.CELLS][16];
+		this.endingCount = new int[BoggleBoard.CELLS];
+		this.spellings = new NodeCounts();
+		this.words = null;
+		this.score = 0;
+		for (int cell = 0; cell < BoggleBoard.CELLS; cell++) {
+			this.extend(cell, -1, WordTrie.ROOT, 0);
+		}
+	}
+
+	/**
+	 * Returns the board as it is now.
+	 *
+	 * @return the board as it is now
+	 */
+	public BoggleBoard board() {
+		return new BoggleBoard(this.faces);
+	}
+
+	/**
+	 * Returns the legal Boggle words on the board as it is now. The words are
+	 * built on the first call after the board changes; the returned set is
+	 * read-only, and does not change when the board changes later.
+	 *
+	 * @return a sorted set of the legal Boggle words on the board
+	 */
+	public SortedSet<String> words() {
+		if (this.words == null) {
+			SortedSet<String> w = new TreeSet<String>();
+			for (int slot = 0; slot < this.spellings.capacity(); slot++) {
+				int node = this.spellings.nodeAt(slot);
+				if (node >= 0) {
+					w.add(this.trie.word(node));
+				}
+			}
+			this.words = Collections.unmodifiableSortedSet(w);
+		}
+		return this.words;
+	}
+
+	/**
+	 * Returns the total score of the legal Boggle words on the board as it is
+	 * now, counting each word once.
+	 *
+	 * @return the total score of the board
+	 */
+	public int score() {
+		return this.score;
+	}
+
+	/**
+	 * Returns the number of paths kept for the board, which is what the memory
+	 * used by the solver and the cost of a change grow with.
+	 *
+	 * @return the number of paths kept
+	 */
+	public int paths() {
+		return this.count;
+	}
+
+	/**
+	 * Changes the face showing in one cell and updates the words and score.
+	 *
+	 * @param cell a cell index between 0 and 15
+	 * @param face the new face of the cell
+	 * @throws IndexOutOfBoundsException if the cell is not between 0 and 15
+	 */
+	public void set(int cell, String face) {
+		face = face.toLowerCase();
+		if (face.equals(this.faces[cell])) {
+			return;
+		}
+		this.faces[cell] = face;
+		long[] dropped = this.ending[cell];
+		for (int i = 0; i < this.endingCount[cell]; i++) {
+			int slot = (int) dropped[i];
+			if (this.generations[slot] == (int) (dropped[i] >>> 32)) {
+				this.unlink(slot);
+				this.release(slot);
+			}
+		}
+		this.endingCount[cell] = 0;
+		this.extend(cell, -1, WordTrie.ROOT, 0);
+		int bit = 1 << cell;
+		int neighbors = BoggleBoard.neighbors(cell);
+		while (neighbors != 0) {
+			int n = Integer.numberOfTrailingZeros(neighbors);
+			neighbors &= neighbors - 1;
+			// the paths added below all use the cell, so they are past the end of the
+			// compacted list and never moved by it
+			int end = this.compact(this.ending[n], this.endingCount[n]);
+			this.endingCount[n] = end;
+			for (int i = 0; i < end; i++) {
+				int slot = (int) this.ending[n][i];
+				if ((this.paths[slot] & bit) == 0) {
+					this.extend(cell, slot, this.nodes[slot], this.paths[slot] & 0xFFFF);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Extends a path into {@code cell}, keeps the new path if its letters start a
+	 * word, and continues through the unused neighbors of the cell.
+	 *
+	 * @param cell   the cell to extend the path into
+	 * @param parent the slot of the path so far, or -1 for the empty path
+	 * @param node   the trie node for the letters of the path so far
+	 * @param used   a bitmask of the cells already on the path
+	 */
+	private void extend(int cell, int parent, int node, int used) {
+		node = this.trie.walk(node, this.faces[cell]);
+		if (node < 0) {
+			return;
+		}
+		used |= 1 << cell;
+		int slot = this.keep(parent, node, used, cell);
+		this.spelled(node, 1);
+		int candidates = BoggleBoard.neighbors(cell) & ~used;
+		while (candidates != 0) {
+			int n = Integer.numberOfTrailingZeros(candidates);
+			candidates &= candidates - 1;
+			this.extend(n, slot, node, used);
+		}
+	}
+
+	/**
+	 * Stores a path in a free slot, as a child of the path it extends, and adds it
+	 * to the list of its last cell.
+	 *
+	 * @return the slot of the path
+	 */
+	private int keep(int parent, int node, int used, int last) {
+		int slot = this.free;
+		if (slot >= 0) {
+			this.free = this.paths[slot];
+		} else {
+			if (this.slots == this.nodes.length) {
+				this.nodes = Arrays.copyOf(this.nodes, 2 * this.slots);
+				this.paths = Arrays.copyOf(this.paths, 2 * this.slots);
+				this.parents = Arrays.copyOf(this.parents, 2 * this.slots);
+				this.children = Arrays.copyOf(this.children, 2 * this.slots);
+				this.siblings = Arrays.copyOf(this.siblings, 2 * this.slots);
+				this.generations = Arrays.copyOf(this.generations, 2 * this.slots);
+			}
+			slot = this.slots++;
+		}
+		this.nodes[slot] = node;
+		this.paths[slot] = used | last << 16;
+		this.parents[slot] = parent;
+		this.children[slot] = -1;
+		if (parent >= 0) {
+			this.siblings[slot] = this.children[parent];
+			this.children[parent] = slot;
+		} else {
+			this.siblings[slot] = -1;
+		}
+		this.count++;
+		this.append(this.ending, this.endingCount, last, (long) this.generations[slot] << 32 | slot);
+		return slot;
+	}
+
+	/**
+	 * Removes a path from the children of the path it extends.
+	 */
+	private void unlink(int slot) {
+		int parent = this.parents[slot];
+		if (parent < 0) {
+			return;
+		}
+		if (this.children[parent] == slot) {
+			this.children[parent] = this.siblings[slot];
+			return;
+		}
+		int s = this.children[parent];
+		while (this.siblings[s] != slot) {
+			s = this.siblings[s];
+		}
+		this.siblings[s] = this.siblings[slot];
+	}
+
+	/**
+	 * Drops a path and every path that extends it, freeing their slots, which
+	 * makes their list entries stale.
+	 */
+	private void release(int slot) {
+		for (int child = this.children[slot]; child >= 0;) {
+			int next = this.siblings[child];
+			this.release(child);
+			child = next;
+		}
+		this.spelled(this.nodes[slot], -1);
+		this.generations[slot]++;
+		this.nodes[slot] = -1;
+		this.paths[slot] = this.free;
+		this.free = slot;
+		this.count--;
+	}
+
+	/**
+	 * Appends an entry to the list of paths of a cell. If the list is full, its
+	 * stale entries are removed first, and it only grows if that leaves it more
+	 * than half full.
+	 *
+	 * @param lists  the lists of every cell
+	 * @param counts the lengths of the lists
+	 * @param cell   the cell whose list to append to
+	 * @param entry  the entry to append
+	 */
+	private void append(long[][] lists, int[] counts, int cell, long entry) {
+		int length = counts[cell];
+		if (length == lists[cell].length) {
+			length = this.compact(lists[cell], length);
+			if (length > lists[cell].length / 2) {
+				lists[cell] = Arrays.copyOf(lists[cell], 2 * lists[cell].length);
+			}
+		}
+		lists[cell][length] = entry;
+		counts[cell] = length + 1;
+	}
+
+	/**
+	 * Moves the entries that are not stale to the front of a list, in order.
+	 *
+	 * @return the number of entries that are not stale
+	 */
+	private int compact(long[] list, int length) {
+		int live = 0;
+		for (int i = 0; i < length; i++) {
+			if (this.generations[(int) list[i]] == (int) (list[i] >>> 32)) {
+				list[live++] = list[i];
+			}
+		}
+		return live;
+	}
+
+	/**
+	 * Adds {@code delta} to the number of paths spelling the word ending at a
+	 * node, if a legal Boggle word ends there, and adds or removes the word when
+	 * the first path to it appears or the last one goes.
+	 */
+	private void spelled(int node, int delta) {
+		if (!this.trie.isWord(node)) {
+			return;
+		}
+		int length = this.trie.depth(node);
+		if (length < BoggleSolver.MIN_LENGTH) {
+			return;
+		}
+		int count = this.spellings.add(node, delta);
+		if (count == delta) {
+			this.score += BoggleGame.score(length);
+			this.words = null;
+		} else if (count == 0) {
+			this.score -= BoggleGame.score(length);
+			this.words = null;
+		}
+	}
+}
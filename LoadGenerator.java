@@ -0,0 +1,322 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * Simulates many players playing rounds of Boggle in this process, to measure
+ * how much load one JVM can carry. Players are split into rooms of
+ * {@value #ROOM_SIZE}; every room has its own {@code BoggleGame}, and all of the
+ * games share one dictionary. For every round a room rolls its dice, solves
+ * the board, and plays a {@code BoggleRound} in which each player submits words
+ * at random intervals: mostly words from the solved board, and sometimes random
+ * strings that are not words. After a rejected word a player sometimes asks for
+ * similar words, as the view does.
+ *
+ * <p>
+ * Every player runs on its own thread. On Java 21 and later these are virtual
+ * threads, so thousands of players cost little more than their stacks; on
+ * older versions a cached pool of platform threads is used instead.
+ *
+ * <p>
+ * The latency of every operation is recorded in microseconds in a
+ * {@code LogHistogram} per operation. At the end the generator prints the
+ * throughput and latency percentiles of each operation, and the number and
+ * total time of garbage collections with percentiles of the individual pauses
+ * when the JVM reports them.
+ */
+public class LoadGenerator {
+
+	/**
+	 * The number of players sharing a game and a round.
+	 */
+	public static final int ROOM_SIZE = 4;
+
+	/**
+	 * Letters used for random strings that are usually not words.
+	 */
+	private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+	private final BoggleDictionary dictionary;
+	private final int players;
+	private final long durationMillis;
+	private final long roundMillis;
+	private final double submissionsPerSecond;
+	private final long seed;
+	private final Map<String, LogHistogram> latencies;
+	private final LogHistogram gcPauses;
+	private final AtomicLong rounds;
+
+	/**
+	 * Initializes a load generator.
+	 *
+	 * @param dictionary           the dictionary shared by every game
+	 * @param players              the number of simulated players
+	 * @param durationMillis       how long to run, in milliseconds
+	 * @param roundMillis          how long each round lasts, in milliseconds
+	 * @param submissionsPerSecond the average number of words each player submits
+	 *                             per second
+	 * @param seed                 the seed the players' choices are generated
+	 *                             from
+	 * @throws IllegalArgumentException if any argument other than the dictionary
+	 *                                  and seed is not positive
+	 */
+	public LoadGenerator(BoggleDictionary dictionary, int players, long durationMillis, long roundMillis,
+			double submissionsPerSecond, long seed) {
+		if (players < 1 || durationMillis < 1 || roundMillis < 1 || !(submissionsPerSecond > 0)) {
+			throw new IllegalArgumentException("players, durations and rate must be positive");
+		}
+		this.dictionary = dictionary;
+		this.players = players;
+		this.durationMillis = durationMillis;
+		this.roundMillis = roundMillis;
+		this.submissionsPerSecond = submissionsPerSecond;
+		this.seed = seed;
+		this.latencies = new LinkedHashMap<String, LogHistogram>();
+		for (String op : new String[] { "roll", "solve", "submit", "similar", "finish" }) {
+			this.latencies.put(op, new LogHistogram());
+		}
+		this.gcPauses = new LogHistogram();
+		this.rounds = new AtomicLong();
+	}
+
+	/**
+	 * Returns an executor that runs each task on a new virtual thread if the JVM
+	 * supports them, and on a cached pool of daemon platform threads otherwise.
+	 *
+	 * @return an executor for the simulated players
+	 */
+	static ExecutorService newPlayerExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(r -> {
+				Thread t = new Thread(r, "boggle-player");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+	}
+
+	/**
+	 * Runs the simulation and prints the results.
+	 *
+	 * @throws InterruptedException if the calling thread is interrupted
+	 */
+	public void run() throws InterruptedException {
+		NotificationListener listener = (notification, handback) -> {
+			if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+				GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo
+						.from((CompositeData) notification.getUserData());
+				if (info.getGcInfo() != null) {
+					this.gcPauses.record(info.getGcInfo().getDuration());
+				}
+			}
+		};
+		List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+		for (GarbageCollectorMXBean gc : collectors) {
+			if (gc instanceof NotificationEmitter) {
+				((NotificationEmitter) gc).addNotificationListener(listener, null, null);
+			}
+		}
+		// build the trie once up front so that the first rounds do not all wait for it
+		this.dictionary.trie();
+		long gcCount = gcCount(collectors);
+		long gcMillis = gcMillis(collectors);
+
+		ExecutorService executor = newPlayerExecutor();
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(this.durationMillis);
+		List<Future<?>> rooms = new ArrayList<Future<?>>();
+		int roomCount = (this.players + ROOM_SIZE - 1) / ROOM_SIZE;
+		for (int r = 0; r < roomCount; r++) {
+			int room = r;
+			int size = Math.min(ROOM_SIZE, this.players - r * ROOM_SIZE);
+			rooms.add(executor.submit(() -> {
+				this.playRoom(executor, room, size, deadline);
+				return null;
+			}));
+		}
+		for (Future<?> f : rooms) {
+			await(f);
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		executor.shutdown();
+
+		for (GarbageCollectorMXBean gc : collectors) {
+			if (gc instanceof NotificationEmitter) {
+				try {
+					((NotificationEmitter) gc).removeNotificationListener(listener);
+				} catch (ListenerNotFoundException e) {
+					// never added
+				}
+			}
+		}
+		this.print(seconds, gcCount(collectors) - gcCount, gcMillis(collectors) - gcMillis);
+	}
+
+	/**
+	 * Plays rounds in one room until the deadline.
+	 */
+	private void playRoom(ExecutorService executor, int room, int size, long deadline) throws InterruptedException {
+		BoggleGame game = new BoggleGame(this.dictionary);
+		Random random = new Random(this.seed * 1000003 + room);
+		while (System.nanoTime() < deadline) {
+			long t = System.nanoTime();
+			game.shuffleAndRoll();
+			this.record("roll", t);
+			t = System.nanoTime();
+			List<String> words = new ArrayList<String>(game.solve());
+			this.record("solve", t);
+			BoggleRound round = new BoggleRound(game);
+			long end = Math.min(deadline, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.roundMillis));
+			List<Future<?>> players = new ArrayList<Future<?>>();
+			for (int p = 0; p < size; p++) {
+				String name = "player" + (room * ROOM_SIZE + p);
+				Random r = new Random(random.nextLong());
+				round.join(name);
+				players.add(executor.submit(() -> {
+					this.play(game, round, name, words, r, end);
+					return null;
+				}));
+			}
+			for (Future<?> f : players) {
+				await(f);
+			}
+			t = System.nanoTime();
+			round.finish();
+			this.record("finish", t);
+			this.rounds.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Submits words for one player until the end of the round, waiting an
+	 * exponentially distributed time before each submission.
+	 */
+	private void play(BoggleGame game, BoggleRound round, String name, List<String> words, Random random, long end)
+			throws InterruptedException {
+		while (true) {
+			long wait = (long) (-Math.log(1 - random.nextDouble()) * 1000 / this.submissionsPerSecond);
+			long now = System.nanoTime();
+			if (now + TimeUnit.MILLISECONDS.toNanos(wait) >= end) {
+				return;
+			}
+			Thread.sleep(wait);
+			String word;
+			if (!words.isEmpty() && random.nextInt(10) < 7) {
+				word = words.get(random.nextInt(words.size()));
+			} else {
+				StringBuilder sb = new StringBuilder();
+				int length = 3 + random.nextInt(5);
+				for (int i = 0; i < length; i++) {
+					sb.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+				}
+				word = sb.toString();
+			}
+			long t = System.nanoTime();
+			boolean ok = round.submit(name, word);
+			this.record("submit", t);
+			if (!ok && random.nextInt(5) == 0) {
+				t = System.nanoTime();
+				game.wordsSimilarTo(word);
+				this.record("similar", t);
+			}
+		}
+	}
+
+	/**
+	 * Records the time since {@code start} in microseconds for an operation.
+	 */
+	private void record(String op, long start) {
+		this.latencies.get(op).record((System.nanoTime() - start) / 1000);
+	}
+
+	/**
+	 * Waits for a task and rethrows any exception it threw.
+	 */
+	private static void await(Future<?> f) throws InterruptedException {
+		try {
+			f.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	private static long gcCount(List<GarbageCollectorMXBean> collectors) {
+		long n = 0;
+		for (GarbageCollectorMXBean gc : collectors) {
+			n += Math.max(0, gc.getCollectionCount());
+		}
+		return n;
+	}
+
+	private static long gcMillis(List<GarbageCollectorMXBean> collectors) {
+		long n = 0;
+		for (GarbageCollectorMXBean gc : collectors) {
+			n += Math.max(0, gc.getCollectionTime());
+		}
+		return n;
+	}
+
+	/**
+	 * Prints the throughput and latencies of every operation and the garbage
+	 * collection statistics.
+	 */
+	private void print(double seconds, long gcCount, long gcMillis) {
+		System.out.printf("%d players, %d rounds in %.1f s%n", this.players, this.rounds.get(), seconds);
+		System.out.printf("%-8s %10s %10s %9s %9s %9s %9s %9s%n", "op", "count", "per s", "p50 us", "p90 us",
+				"p99 us", "p99.9 us", "max us");
+		for (Map.Entry<String, LogHistogram> e : this.latencies.entrySet()) {
+			LogHistogram h = e.getValue();
+			System.out.printf("%-8s %10d %10.1f %9d %9d %9d %9d %9d%n", e.getKey(), h.count(), h.count() / seconds,
+					h.quantile(0.5), h.quantile(0.9), h.quantile(0.99), h.quantile(0.999), h.max());
+		}
+		System.out.printf("gc: %d collections, %d ms total", gcCount, gcMillis);
+		if (this.gcPauses.count() > 0) {
+			System.out.printf(", pauses p50 %d ms, p99 %d ms, max %d ms", this.gcPauses.quantile(0.5),
+					this.gcPauses.quantile(0.99), this.gcPauses.max());
+		}
+		System.out.println();
+	}
+
+	/**
+	 * Loads the dictionary and runs the load generator.
+	 *
+	 * <p>
+	 * The arguments are, in order and all optional: the number of players
+	 * (default 1000), how long to run in seconds (default 30), how long each round
+	 * lasts in seconds (default 10), the average number of words each player
+	 * submits per second (default 0.5), and the seed (default 1).
+	 *
+	 * @param args the players, duration, round length, rate and seed
+	 * @throws InterruptedException if the main thread is interrupted
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int players = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		long seconds = args.length > 1 ? Long.parseLong(args[1]) : 30;
+		long roundSeconds = args.length > 2 ? Long.parseLong(args[2]) : 10;
+		double rate = args.length > 3 ? Double.parseDouble(args[3]) : 0.5;
+		long seed = args.length > 4 ? Long.parseLong(args[4]) : 1;
+		new LoadGenerator(new BoggleDictionary(), players, seconds * 1000, roundSeconds * 1000, rate, seed).run();
+	}
+}
@@ -0,0 +1,150 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of non-negative {@code long} values that uses a fixed amount of
+ * memory no matter how many values are recorded, used to estimate quantiles
+ * such as the median or the 99th percentile.
+ *
+ * <p>
+ * Values below 64 are counted exactly. Larger values are counted in buckets
+ * whose width grows with the value: each power-of-two range is split into 32
+ * buckets, so a quantile is never off by more than about 3% of its value. The
+ * whole range of {@code long} fits in fewer than 2000 buckets.
+ *
+ * <p>
+ * Values can be recorded from many threads at once; the buckets are atomic
+ * counters. A copy taken while values are being recorded may miss some of the
+ * values recorded during the copy.
+ */
+public class LogHistogram {
+
+	private static final int SUB_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int EXACT = 2 * SUB_BUCKETS;
+	private static final int BUCKETS = EXACT + (63 - SUB_BITS - 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts;
+	private final AtomicLong max;
+
+	/**
+	 * Initializes an empty histogram.
+	 */
+	public LogHistogram() {
+		this.counts = new AtomicLongArray(BUCKETS);
+		this.max = new AtomicLong(-1);
+	}
+
+	/**
+	 * Returns the bucket that counts the specified value.
+	 *
+	 * @param v a non-negative value
+	 * @return the index of the bucket for the value
+	 */
+	private static int bucket(long v) {
+		if (v < EXACT) {
+			return (int) v;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+		return EXACT + (shift - 1) * SUB_BUCKETS + (int) (v >>> shift) - SUB_BUCKETS;
+	}
+
+	/**
+	 * Returns the largest value counted by the specified bucket.
+	 *
+	 * @param b the index of a bucket
+	 * @return the largest value counted by the bucket
+	 */
+	private static long highest(int b) {
+		if (b < EXACT) {
+			return b;
+		}
+		int shift = (b - EXACT) / SUB_BUCKETS + 1;
+		long sub = (b - EXACT) % SUB_BUCKETS + SUB_BUCKETS;
+		return ((sub + 1) << shift) - 1;
+	}
+
+	/**
+	 * Records a value.
+	 *
+	 * @param value the value to record
+	 * @throws IllegalArgumentException if the value is negative
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("value must not be negative");
+		}
+		this.counts.incrementAndGet(bucket(value));
+		this.max.accumulateAndGet(value, Math::max);
+	}
+
+	/**
+	 * Returns the number of values recorded.
+	 *
+	 * @return the number of values recorded
+	 */
+	public long count() {
+		long n = 0;
+		for (int b = 0; b < BUCKETS; b++) {
+			n += this.counts.get(b);
+		}
+		return n;
+	}
+
+	/**
+	 * Returns the largest value recorded.
+	 *
+	 * @return the largest value recorded, or -1 if no value has been recorded
+	 */
+	public long max() {
+		return this.max.get();
+	}
+
+	/**
+	 * Returns an estimate of the specified quantile of the recorded values; for
+	 * example, {@code quantile(0.99)} estimates the 99th percentile. The estimate
+	 * is the largest value of the bucket that holds the quantile, capped at the
+	 * largest value recorded.
+	 *
+	 * @param q a quantile between 0 and 1
+	 * @return an estimate of the quantile, or -1 if no value has been recorded
+	 * @throws IllegalArgumentException if {@code q} is not between 0 and 1
+	 */
+	public long quantile(double q) {
+		if (q < 0 || q > 1) {
+			throw new IllegalArgumentException("quantile must be between 0 and 1");
+		}
+		long[] snapshot = new long[BUCKETS];
+		long n = 0;
+		for (int b = 0; b < BUCKETS; b++) {
+			snapshot[b] = this.counts.get(b);
+			n += snapshot[b];
+		}
+		if (n == 0) {
+			return -1;
+		}
+		long rank = Math.max(1, (long) Math.ceil(q * n));
+		long seen = 0;
+		for (int b = 0; b < BUCKETS; b++) {
+			seen += snapshot[b];
+			if (seen >= rank) {
+				return Math.min(highest(b), this.max.get());
+			}
+		}
+		return this.max.get();
+	}
+
+	/**
+	 * Returns a copy of this histogram.
+	 *
+	 * @return a copy of this histogram
+	 */
+	public LogHistogram copy() {
+		LogHistogram h = new LogHistogram();
+		for (int b = 0; b < BUCKETS; b++) {
+			h.counts.set(b, this.counts.get(b));
+		}
+		h.max.set(this.max.get());
+		return h;
+	}
+}
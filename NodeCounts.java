@@ -0,0 +1,176 @@
+import java.util.Arrays;
+
+/**
+ * A count for each of a few nodes of a {@code WordTrie}, such as the words
+ * found on one board. Only the nodes with a count other than zero are stored,
+ * in an open-addressed hash table with linear probing, so the memory used and
+ * the cost of {@code clear} grow with the number of nodes counted rather than
+ * with the size of the trie.
+ *
+ * <p>
+ * A node whose count goes back to zero is removed by shifting the nodes after
+ * it back into its slot, so the table never fills up with deleted entries.
+ */
+public class NodeCounts {
+
+	private static final int EMPTY = -1;
+
+	private int[] nodes;
+	private int[] counts;
+	private int size;
+	private int shift;
+
+	/**
+	 * Initializes an empty set of counts.
+	 */
+	public NodeCounts() {
+		this.nodes = new int[64];
+		this.counts = new int[64];
+		Arrays.fill(this.nodes, EMPTY);
+		this.size = 0;
+		this.shift = 32 - 6;
+	}
+
+	/**
+	 * Returns the number of nodes with a count other than zero.
+	 *
+	 * @return the number of nodes with a count other than zero
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the count of a node.
+	 *
+	 * @param node a node
+	 * @return the count of the node, which is zero if it has never been added
+	 */
+	public int get(int node) {
+		int slot = this.slot(node);
+		return this.nodes[slot] == node ? this.counts[slot] : 0;
+	}
+
+	/**
+	 * Adds {@code delta} to the count of a node.
+	 *
+	 * @param node  a node
+	 * @param delta the amount to add
+	 * @return the new count of the node
+	 */
+	public int add(int node, int delta) {
+		int slot = this.slot(node);
+		if (this.nodes[slot] != node) {
+			if (delta == 0) {
+				return 0;
+			}
+			if (2 * (this.size + 1) > this.nodes.length) {
+				this.grow();
+				slot = this.slot(node);
+			}
+			this.nodes[slot] = node;
+			this.counts[slot] = delta;
+			this.size++;
+			return delta;
+		}
+		int count = this.counts[slot] + delta;
+		if (count == 0) {
+			this.remove(slot);
+		} else {
+			this.counts[slot] = count;
+		}
+		return count;
+	}
+
+	/**
+	 * Removes every count.
+	 */
+	public void clear() {
+		if (this.size > 0) {
+			Arrays.fill(this.nodes, EMPTY);
+			this.size = 0;
+		}
+	}
+
+	/**
+	 * Returns the number of slots of the table, for walking every node with
+	 * {@link #nodeAt(int)}.
+	 *
+	 * @return the number of slots of the table
+	 */
+	public int capacity() {
+		return this.nodes.length;
+	}
+
+	/**
+	 * Returns the node in a slot of the table.
+	 *
+	 * @param slot a slot between 0 and {@code capacity() - 1}
+	 * @return the node in the slot, or -1 if the slot is empty
+	 */
+	public int nodeAt(int slot) {
+		return this.nodes[slot];
+	}
+
+	/**
+	 * Returns the slot that holds a node, or the empty slot where it would go.
+	 */
+	private int slot(int node) {
+		int mask = this.nodes.length - 1;
+		int slot = this.home(node);
+		while (this.nodes[slot] != EMPTY && this.nodes[slot] != node) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Returns the slot a node is put in if it is free, from the high bits of the
+	 * node multiplied by the golden ratio.
+	 */
+	private int home(int node) {
+		return node * 0x9E3779B9 >>> this.shift;
+	}
+
+	/**
+	 * Empties a slot, moving back any later node of the same run that can no
+	 * longer be found past the gap.
+	 */
+	private void remove(int slot) {
+		int mask = this.nodes.length - 1;
+		int gap = slot;
+		int next = (gap + 1) & mask;
+		while (this.nodes[next] != EMPTY) {
+			int home = this.home(this.nodes[next]);
+			// the node can move into the gap unless its home lies after the gap on
+			// the way round to where it is
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				this.nodes[gap] = this.nodes[next];
+				this.counts[gap] = this.counts[next];
+				gap = next;
+			}
+			next = (next + 1) & mask;
+		}
+		this.nodes[gap] = EMPTY;
+		this.size--;
+	}
+
+	/**
+	 * Doubles the table and puts every node back in it.
+	 */
+	private void grow() {
+		int[] oldNodes = this.nodes;
+		int[] oldCounts = this.counts;
+		this.nodes = new int[2 * oldNodes.length];
+		this.counts = new int[2 * oldNodes.length];
+		Arrays.fill(this.nodes, EMPTY);
+		this.shift--;
+		for (int i = 0; i < oldNodes.length; i++) {
+			if (oldNodes[i] != EMPTY) {
+				int slot = this.slot(oldNodes[i]);
+				this.nodes[slot] = oldNodes[i];
+				this.counts[slot] = oldCounts[i];
+			}
+		}
+	}
+}
@@ -0,0 +1,246 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A record of a finished round for the game history: the ID of the round, the
+ * time it started, the board it was played on, and for each player their score
+ * and the words they found with the time each word was submitted. Times are in
+ * milliseconds since the epoch.
+ *
+ * @see HistoryWriter
+ * @see HistoryReader
+ */
+public class RoundRecord {
+
+	/**
+	 * The result of one player in a round.
+	 */
+	public static class Player {
+		private final String name;
+		private final int score;
+		private final String[] words;
+		private final long[] times;
+
+		/**
+		 * Initializes the result of one player.
+		 *
+		 * @param name  the name of the player
+		 * @param score the score of the player
+		 * @param words the words the player found
+		 * @param times the time each word was submitted
+		 * @throws IllegalArgumentException if there is not one time per word
+		 */
+		public Player(String name, int score, String[] words, long[] times) {
+			if (words.length != times.length) {
+				throw new IllegalArgumentException("there must be one time per word");
+			}
+			this.name = name;
+			this.score = score;
+			this.words = words.clone();
+			this.times = times.clone();
+		}
+
+		/**
+		 * Returns the name of the player.
+		 *
+		 * @return the name of the player
+		 */
+		public String name() {
+			return this.name;
+		}
+
+		/**
+		 * Returns the score of the player.
+		 *
+		 * @return the score of the player
+		 */
+		public int score() {
+			return this.score;
+		}
+
+		/**
+		 * Returns the number of words the player found.
+		 *
+		 * @return the number of words the player found
+		 */
+		public int wordCount() {
+			return this.words.length;
+		}
+
+		/**
+		 * Returns one of the words the player found.
+		 *
+		 * @param i the index of the word
+		 * @return the word
+		 */
+		public String word(int i) {
+			return this.words[i];
+		}
+
+		/**
+		 * Returns the time one of the words was submitted.
+		 *
+		 * @param i the index of the word
+		 * @return the time the word was submitted
+		 */
+		public long time(int i) {
+			return this.times[i];
+		}
+	}
+
+	private final long roundId;
+	private final long startTime;
+	private final BoggleBoard board;
+	private final List<Player> players;
+
+	/**
+	 * Initializes a record of a round.
+	 *
+	 * @param roundId   the ID of the round
+	 * @param startTime the time the round started
+	 * @param board     the board the round was played on
+	 * @param players   the results of the players
+	 */
+	public RoundRecord(long roundId, long startTime, BoggleBoard board, List<Player> players) {
+		this.roundId = roundId;
+		this.startTime = startTime;
+		this.board = board;
+		this.players = Collections.unmodifiableList(new ArrayList<Player>(players));
+	}
+
+	/**
+	 * Returns the ID of the round.
+	 *
+	 * @return the ID of the round
+	 */
+	public long roundId() {
+		return this.roundId;
+	}
+
+	/**
+	 * Returns the time the round started.
+	 *
+	 * @return the time the round started
+	 */
+	public long startTime() {
+		return this.startTime;
+	}
+
+	/**
+	 * Returns the board the round was played on.
+	 *
+	 * @return the board the round was played on
+	 */
+	public BoggleBoard board() {
+		return this.board;
+	}
+
+	/**
+	 * Returns the results of the players.
+	 *
+	 * @return an unmodifiable list of the results of the players
+	 */
+	public List<Player> players() {
+		return this.players;
+	}
+
+	/**
+	 * Checks this record again from scratch: every word must be a legal Boggle
+	 * word on the board of the round according to the specified dictionary, and
+	 * every score must be the sum of the scores of the words that no other player
+	 * found. The words of the whole round are looked up in one batch.
+	 *
+	 * @param dictionary the dictionary to check words against
+	 * @return true if the record is consistent, and false otherwise
+	 */
+	public boolean isValid(BoggleDictionary dictionary) {
+		Map<String, Integer> finders = new HashMap<String, Integer>();
+		for (Player p : this.players) {
+			for (String w : p.words) {
+				if (w.length() < BoggleSolver.MIN_LENGTH || !this.board.canTrace(w)) {
+					return false;
+				}
+				finders.merge(w, 1, Integer::sum);
+			}
+		}
+		Set<String> known = new HashSet<String>(dictionary.filter(finders.keySet()));
+		if (known.size() != finders.size()) {
+			return false;
+		}
+		for (Player p : this.players) {
+			int score = 0;
+			for (String w : p.words) {
+				if (finders.get(w) == 1) {
+					score += BoggleGame.score(w);
+				}
+			}
+			if (score != p.score) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Writes this record in the binary format of the game history.
+	 *
+	 * @param out the output to write to
+	 * @throws IOException if the record cannot be written
+	 */
+	void write(DataOutput out) throws IOException {
+		out.writeLong(this.roundId);
+		out.writeLong(this.startTime);
+		for (int i = 0; i < BoggleBoard.CELLS; i++) {
+			out.writeUTF(this.board.face(i));
+		}
+		out.writeInt(this.players.size());
+		for (Player p : this.players) {
+			out.writeUTF(p.name);
+			out.writeInt(p.score);
+			out.writeInt(p.words.length);
+			for (int i = 0; i < p.words.length; i++) {
+				out.writeUTF(p.words[i]);
+				out.writeLong(p.times[i]);
+			}
+		}
+	}
+
+	/**
+	 * Reads a record in the binary format of the game history.
+	 *
+	 * @param in the input to read from
+	 * @return the record
+	 * @throws IOException if the record cannot be read
+	 */
+	static RoundRecord read(DataInput in) throws IOException {
+		long roundId = in.readLong();
+		long startTime = in.readLong();
+		String[] faces = new String[BoggleBoard.CELLS];
+		for (int i = 0; i < BoggleBoard.CELLS; i++) {
+			faces[i] = in.readUTF();
+		}
+		int n = in.readInt();
+		List<Player> players = new ArrayList<Player>(n);
+		for (int k = 0; k < n; k++) {
+			String name = in.readUTF();
+			int score = in.readInt();
+			int count = in.readInt();
+			String[] words = new String[count];
+			long[] times = new long[count];
+			for (int i = 0; i < count; i++) {
+				words[i] = in.readUTF();
+				times[i] = in.readLong();
+			}
+			players.add(new Player(name, score, words, times));
+		}
+		return new RoundRecord(roundId, startTime, new BoggleBoard(faces), players);
+	}
+}
@@ -0,0 +1,67 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records how long the Boggle app takes to show its first frame and to finish
+ * loading its dictionary. Both times are measured in milliseconds since the
+ * Java virtual machine was started, so they include class loading and
+ * anything else that happens before {@code main} runs.
+ *
+ * <p>
+ * Each time is recorded and reported on standard output only the first time
+ * the corresponding event happens.
+ */
+public final class StartupMetrics {
+
+	private static final AtomicLong FIRST_FRAME = new AtomicLong(-1);
+	private static final AtomicLong DICTIONARY_READY = new AtomicLong(-1);
+
+	private StartupMetrics() {
+	}
+
+	/**
+	 * Records that the first frame of the app has been shown.
+	 */
+	public static void firstFrameShown() {
+		record(FIRST_FRAME, "first frame");
+	}
+
+	/**
+	 * Records that the dictionary has finished loading.
+	 */
+	public static void dictionaryReady() {
+		record(DICTIONARY_READY, "dictionary ready");
+	}
+
+	/**
+	 * Returns the time from startup until the first frame was shown.
+	 *
+	 * @return the time in milliseconds, or -1 if no frame has been shown yet
+	 */
+	public static long timeToFirstFrame() {
+		return FIRST_FRAME.get();
+	}
+
+	/**
+	 * Returns the time from startup until the dictionary was ready.
+	 *
+	 * @return the time in milliseconds, or -1 if the dictionary is not ready yet
+	 */
+	public static long timeToDictionaryReady() {
+		return DICTIONARY_READY.get();
+	}
+
+	/**
+	 * Stores the current uptime in the specified metric and reports it, unless the
+	 * metric was already recorded.
+	 *
+	 * @param metric the metric to record
+	 * @param name   the name to report the metric under
+	 */
+	private static void record(AtomicLong metric, String name) {
+		long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+		if (metric.compareAndSet(-1, uptime)) {
+			System.out.println("startup: " + name + " after " + uptime + " ms");
+		}
+	}
+}
@@ -0,0 +1,161 @@
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the {@code k} strings with the highest priorities offered to it. The
+ * strings and their priorities are kept in a binary min-heap of two parallel
+ * arrays, so the heap holds at most {@code k} strings and offering a string
+ * costs O(log k).
+ *
+ * <p>
+ * A string can be offered again with a higher priority, in which case its
+ * priority is updated; the priority of a string is never lowered. Offers can be
+ * made from many threads at once. Offers that cannot change the heap are
+ * rejected without taking its lock.
+ */
+public class TopKHeap {
+
+	private final int capacity;
+	private final long[] priorities;
+	private final String[] keys;
+	private final Map<String, Integer> positions;
+	private int size;
+
+	/**
+	 * The lowest priority in the heap once it is full; an offer for a string not
+	 * in the heap must beat it to get in.
+	 */
+	private volatile long threshold;
+
+	/**
+	 * Initializes an empty heap.
+	 *
+	 * @param k the number of strings to keep
+	 * @throws IllegalArgumentException if {@code k < 1}
+	 */
+	public TopKHeap(int k) {
+		if (k < 1) {
+			throw new IllegalArgumentException("k must be positive");
+		}
+		this.capacity = k;
+		this.priorities = new long[k];
+		this.keys = new String[k];
+		this.positions = new HashMap<String, Integer>();
+		this.size = 0;
+		this.threshold = Long.MIN_VALUE;
+	}
+
+	/**
+	 * Offers a string with the specified priority. If the string is in the heap
+	 * its priority is raised to the specified priority; otherwise the string is
+	 * added if the heap is not full or if the priority is higher than the lowest
+	 * priority in the heap, which is then dropped.
+	 *
+	 * <p>
+	 * Because priorities are never lowered, an offer whose priority is not higher
+	 * than the lowest priority in a full heap can never change the heap.
+	 *
+	 * @param key      a string
+	 * @param priority the priority of the string
+	 */
+	public void offer(String key, long priority) {
+		if (priority <= this.threshold) {
+			return;
+		}
+		synchronized (this) {
+			Integer pos = this.positions.get(key);
+			if (pos != null) {
+				if (priority > this.priorities[pos]) {
+					this.priorities[pos] = priority;
+					this.siftDown(pos);
+				}
+			} else if (this.size < this.capacity) {
+				this.set(this.size, key, priority);
+				this.size++;
+				this.siftUp(this.size - 1);
+			} else if (priority > this.priorities[0]) {
+				this.positions.remove(this.keys[0]);
+				this.set(0, key, priority);
+				this.siftDown(0);
+			}
+			if (this.size == this.capacity) {
+				this.threshold = this.priorities[0];
+			}
+		}
+	}
+
+	/**
+	 * Puts a string and its priority at a position of the heap.
+	 */
+	private void set(int i, String key, long priority) {
+		this.keys[i] = key;
+		this.priorities[i] = priority;
+		this.positions.put(key, i);
+	}
+
+	/**
+	 * Swaps the entries at two positions of the heap.
+	 */
+	private void swap(int i, int j) {
+		String k = this.keys[i];
+		long p = this.priorities[i];
+		this.set(i, this.keys[j], this.priorities[j]);
+		this.set(j, k, p);
+	}
+
+	/**
+	 * Moves the entry at a position up the heap until its parent has a lower
+	 * priority.
+	 */
+	private void siftUp(int i) {
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			if (this.priorities[parent] <= this.priorities[i]) {
+				return;
+			}
+			this.swap(i, parent);
+			i = parent;
+		}
+	}
+
+	/**
+	 * Moves the entry at a position down the heap until its children have higher
+	 * priorities.
+	 */
+	private void siftDown(int i) {
+		while (true) {
+			int smallest = i;
+			int left = 2 * i + 1;
+			int right = left + 1;
+			if (left < this.size && this.priorities[left] < this.priorities[smallest]) {
+				smallest = left;
+			}
+			if (right < this.size && this.priorities[right] < this.priorities[smallest]) {
+				smallest = right;
+			}
+			if (smallest == i) {
+				return;
+			}
+			this.swap(i, smallest);
+			i = smallest;
+		}
+	}
+
+	/**
+	 * Returns the strings in the heap and their priorities, highest priority
+	 * first.
+	 *
+	 * @return a new list of the strings in the heap and their priorities
+	 */
+	public synchronized List<Map.Entry<String, Long>> top() {
+		List<Map.Entry<String, Long>> result = new ArrayList<Map.Entry<String, Long>>(this.size);
+		for (int i = 0; i < this.size; i++) {
+			result.add(new AbstractMap.SimpleImmutableEntry<String, Long>(this.keys[i], this.priorities[i]));
+		}
+		result.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+		return result;
+	}
+}
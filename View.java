@@ -4,6 +4,8 @@ import java.awt.Font;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -15,8 +17,9 @@ import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JList;
+import javax.swing.JOptionPane;
 import javax.swing.JScrollPane;
-import javax.swing.JTextArea;
 import javax.swing.JTextField;
 
 /**
@@ -44,9 +47,9 @@ public class View extends JFrame implements ActionListener {
 	private List<JButton> diceButtons;
 	private JTextField word;
 	private Set<JButton> usedButtons;
-	private JTextArea correctWords;
-	private JTextArea incorrectWords;
-	private JTextArea suggestedWords;
+	private WordListModel correctWords;
+	private WordListModel incorrectWords;
+	private WordListModel suggestedWords;
 
 	/**
 	 * Create the Boggle user interface. Please see the lab for a detailed
@@ -71,6 +74,12 @@ public class View extends JFrame implements ActionListener {
 		this.setContentPane(contentPanel);
 		this.pack();
 		this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		this.addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowOpened(WindowEvent e) {
+				StartupMetrics.firstFrameShown();
+			}
+		});
 	}
 
 	/**
@@ -186,6 +195,22 @@ public class View extends JFrame implements ActionListener {
 		}
 	}
 
+	/**
+	 * Creates a list that shows the words in the specified model. Every row has
+	 * the same size, taken from a prototype word, so the list never has to measure
+	 * the words it does not show. The list is 30 rows high and 16 characters wide.
+	 * 
+	 * @param model the words to show
+	 * @return the list
+	 */
+	private static JList<String> makeWordList(WordListModel model) {
+		JList<String> list = new JList<String>(model);
+		list.setPrototypeCellValue("mmmmmmmmmmmmmmmm");
+		list.setVisibleRowCount(30);
+		list.setFocusable(false);
+		return list;
+	}
+
 	/**
 	 * Creates the panel for the valid submitted words.
 	 * 
@@ -204,11 +229,10 @@ public class View extends JFrame implements ActionListener {
 		JLabel label = new JLabel("Correct Words");
 		p.add(label);
 
-		// create the list of correct words, remove the ability for the user to
-		// edit the list, and add it to the panel
-		this.correctWords = new JTextArea(30, 16);
-		this.correctWords.setEditable(false);
-		p.add(this.correctWords);
+		// create the list of correct words and add it to the panel inside a
+		// scroll pane
+		this.correctWords = new WordListModel(false);
+		p.add(new JScrollPane(makeWordList(this.correctWords)));
 
 		return p;
 	}
@@ -224,9 +248,8 @@ public class View extends JFrame implements ActionListener {
 		p.setLayout(new BoxLayout(p, BoxLayout.Y_AXIS));
 		JLabel label = new JLabel("Incorrect Words");
 		p.add(label);
-		this.incorrectWords = new JTextArea(30, 16);
-		this.incorrectWords.setEditable(false);
-		p.add(this.incorrectWords);
+		this.incorrectWords = new WordListModel(false);
+		p.add(new JScrollPane(makeWordList(this.incorrectWords)));
 		return p;
 	}
 	
@@ -241,9 +264,8 @@ public class View extends JFrame implements ActionListener {
 		p.setLayout(new BoxLayout(p, BoxLayout.Y_AXIS));
 		JLabel label = new JLabel("Suggested Words");
 		p.add(label);
-		this.suggestedWords = new JTextArea(30, 16);
-		this.suggestedWords.setEditable(false);
-		JScrollPane areaScrollPane = new JScrollPane(this.suggestedWords);
+		this.suggestedWords = new WordListModel(true);
+		JScrollPane areaScrollPane = new JScrollPane(makeWordList(this.suggestedWords));
 		areaScrollPane.setVerticalScrollBarPolicy(
 		                JScrollPane.VERTICAL_SCROLLBAR_ALWAYS);
 		p.add(areaScrollPane);
@@ -335,14 +357,28 @@ public class View extends JFrame implements ActionListener {
 	 *                be a legal Boggle word, <code>false</code> otherwise
 	 */
 	public void setWordIsValid(boolean isValid) {
+		this.setWordIsValid(this.getWord(), isValid);
+		this.clearCurrentWord();
+	}
+
+	/**
+	 * Causes the view to update after the specified word is evaluated for
+	 * correctness. If <code>isValid == true</code> then the word is added to the
+	 * list of correct words, otherwise it is added to the list of incorrect words.
+	 * Unlike {@link #setWordIsValid(boolean)} the current word is left alone, so
+	 * the result of a word that was submitted earlier can be shown while the user
+	 * spells the next one.
+	 * 
+	 * @param word    the submitted word
+	 * @param isValid <code>true</code> if the word has been determined to be a
+	 *                legal Boggle word, <code>false</code> otherwise
+	 */
+	public void setWordIsValid(String word, boolean isValid) {
 		if (isValid) {
-			this.correctWords.append(this.getWord());
-			this.correctWords.append("\n");
+			this.correctWords.add(word);
 		} else {
-			this.incorrectWords.append(this.getWord());
-			this.incorrectWords.append("\n");
+			this.incorrectWords.add(word);
 		}
-		this.clearCurrentWord();
 	}
 
 	/**
@@ -350,7 +386,7 @@ public class View extends JFrame implements ActionListener {
 	 * requires re-enabling all of the dice buttons and clearing the set
 	 * this.usedButtons
 	 */
-	private void clearCurrentWord() {
+	public void clearCurrentWord() {
 		this.enableAllDiceButtons();
 		this.word.setText("");
 		this.usedButtons.clear();
@@ -360,21 +396,21 @@ public class View extends JFrame implements ActionListener {
 	 * Clears the list of correct words.
 	 */
 	private void clearCorrectWords() {
-		this.correctWords.setText("");
+		this.correctWords.clear();
 	}
 
 	/**
 	 * Clears the list of incorrect words.
 	 */
 	private void clearIncorrectWords() {
-		this.incorrectWords.setText("");
+		this.incorrectWords.clear();
 	}
 	
 	/**
 	 * Clears the list of suggested words.
 	 */
 	private void clearSuggestedWords() {
-		this.suggestedWords.setText("");
+		this.suggestedWords.clear();
 	}
 	
 	/**
@@ -384,11 +420,16 @@ public class View extends JFrame implements ActionListener {
 	 * @param words a sorted set of suggested words
 	 */
 	public void setSuggestedWords(SortedSet<String> words) {
-		this.suggestedWords.setText("");
-		for (String s : words) {
-			this.suggestedWords.append(s.toUpperCase());
-			this.suggestedWords.append("\n");
-		}
+		this.suggestedWords.setAll(words);
+	}
+
+	/**
+	 * Tells the user that something went wrong.
+	 * 
+	 * @param message a description of what went wrong
+	 */
+	public void showError(String message) {
+		JOptionPane.showMessageDialog(this, message, "Boggle", JOptionPane.ERROR_MESSAGE);
 	}
 
 }
@@ -0,0 +1,100 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.swing.AbstractListModel;
+
+/**
+ * The list model behind the word lists in the view. A {@code JList} only asks
+ * its model for the words in the rows that are visible, so a list of thousands
+ * of words costs no more to show than a list of a few.
+ *
+ * <p>
+ * Replacing every word in the list with {@code setAll} describes the whole
+ * change in at most three events instead of one per word, and the list is
+ * repainted once. Words can optionally be shown in upper case; they are
+ * converted when a row is rendered, not when they are added.
+ */
+public class WordListModel extends AbstractListModel<String> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final List<String> words;
+	private final boolean upperCase;
+
+	/**
+	 * Initializes an empty list.
+	 *
+	 * @param upperCase true to show the words in upper case
+	 */
+	public WordListModel(boolean upperCase) {
+		this.words = new ArrayList<String>();
+		this.upperCase = upperCase;
+	}
+
+	/**
+	 * Returns the number of words in the list.
+	 *
+	 * @return the number of words in the list
+	 */
+	@Override
+	public int getSize() {
+		return this.words.size();
+	}
+
+	/**
+	 * Returns the word shown in the specified row.
+	 *
+	 * @param index the index of a row
+	 * @return the word shown in the row
+	 */
+	@Override
+	public String getElementAt(int index) {
+		String w = this.words.get(index);
+		return this.upperCase ? w.toUpperCase() : w;
+	}
+
+	/**
+	 * Adds a word to the end of the list.
+	 *
+	 * @param word the word to add
+	 */
+	public void add(String word) {
+		this.words.add(word);
+		this.fireIntervalAdded(this, this.words.size() - 1, this.words.size() - 1);
+	}
+
+	/**
+	 * Replaces the words in the list with the specified words, in iteration order.
+	 * The change is reported as one removal or addition for the difference in
+	 * size plus one change event for the rows that were replaced.
+	 *
+	 * @param newWords the new words of the list
+	 */
+	public void setAll(Collection<String> newWords) {
+		int oldSize = this.words.size();
+		this.words.clear();
+		this.words.addAll(newWords);
+		int newSize = this.words.size();
+		if (newSize < oldSize) {
+			this.fireIntervalRemoved(this, newSize, oldSize - 1);
+		}
+		if (newSize > oldSize) {
+			this.fireIntervalAdded(this, oldSize, newSize - 1);
+		}
+		if (Math.min(oldSize, newSize) > 0) {
+			this.fireContentsChanged(this, 0, Math.min(oldSize, newSize) - 1);
+		}
+	}
+
+	/**
+	 * Removes every word from the list.
+	 */
+	public void clear() {
+		int oldSize = this.words.size();
+		if (oldSize > 0) {
+			this.words.clear();
+			this.fireIntervalRemoved(this, 0, oldSize - 1);
+		}
+	}
+}
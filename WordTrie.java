@@ -0,0 +1,378 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * A compact, read-only trie of lower-case words, used to find all of the words
+ * on a board without looking up every path in the dictionary.
+ *
+ * <p>
+ * Nodes are numbered from 0 (the root) and stored in two primitive arrays. For
+ * every node, {@code childMask} has bit {@code c - 'a'} set if the node has a
+ * child for the letter {@code c}, and bit 31 set if the path to the node spells
+ * a word. The children of a node are stored next to each other in letter order
+ * starting at {@code firstChild}, so the child for a letter is found by counting
+ * the bits of the mask below the letter. This takes 8 bytes per node instead of
+ * an array of 26 child pointers.
+ *
+ * <p>
+ * Only words made up of the letters {@code a} to {@code z} are stored.
+ */
+public class WordTrie {
+
+	/**
+	 * The node number of the root of every trie.
+	 */
+	public static final int ROOT = 0;
+
+	private static final int WORD = 1 << 31;
+
+	private int[] childMask;
+	private int[] firstChild;
+	private int size;
+
+	/**
+	 * The node above each node, used to spell out the word ending at a node;
+	 * built the first time it is needed.
+	 */
+	private volatile int[] parents;
+
+	/**
+	 * Initializes a trie holding the specified words.
+	 *
+	 * @param words the words to store in the trie
+	 */
+	public WordTrie(List<String> words) {
+		List<String> sorted = new ArrayList<String>(words.size());
+		for (String w : words) {
+			if (isLowerCaseWord(w)) {
+				sorted.add(w);
+			}
+		}
+		Collections.sort(sorted);
+		this.childMask = new int[Math.max(16, sorted.size())];
+		this.firstChild = new int[this.childMask.length];
+		this.size = 1;
+		this.build(ROOT, sorted, 0, sorted.size(), 0);
+		this.childMask = Arrays.copyOf(this.childMask, this.size);
+		this.firstChild = Arrays.copyOf(this.firstChild, this.size);
+	}
+
+	/**
+	 * Returns true if the word is not empty and only has the letters {@code a} to
+	 * {@code z}.
+	 *
+	 * @param w a string
+	 * @return true if the string can be stored in a trie
+	 */
+	static boolean isLowerCaseWord(String w) {
+		if (w.isEmpty()) {
+			return false;
+		}
+		for (int i = 0; i < w.length(); i++) {
+			char c = w.charAt(i);
+			if (c < 'a' || c > 'z') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Fills in the subtree of {@code node}, which holds the sorted words
+	 * {@code words[lo, hi)}; all of those words share their first {@code depth}
+	 * letters. The children of the node are allocated together before any of them
+	 * is filled in, which keeps siblings next to each other.
+	 *
+	 * @param node  the node to fill in
+	 * @param words the sorted words
+	 * @param lo    the index of the first word under the node
+	 * @param hi    the index one past the last word under the node
+	 * @param depth the length of the path to the node
+	 */
+	private void build(int node, List<String> words, int lo, int hi, int depth) {
+		int mask = 0;
+		while (lo < hi && words.get(lo).length() == depth) {
+			mask |= WORD;
+			lo++;
+		}
+		int children = 0;
+		for (int i = lo; i < hi; i++) {
+			int bit = 1 << (words.get(i).charAt(depth) - 'a');
+			if ((mask & bit) == 0) {
+				mask |= bit;
+				children++;
+			}
+		}
+		int first = this.allocate(children);
+		this.childMask[node] = mask;
+		this.firstChild[node] = first;
+		int child = first;
+		int start = lo;
+		for (int i = lo + 1; i <= hi; i++) {
+			if (i == hi || words.get(i).charAt(depth) != words.get(start).charAt(depth)) {
+				this.build(child, words, start, i, depth + 1);
+				child++;
+				start = i;
+			}
+		}
+	}
+
+	/**
+	 * Allocates {@code n} consecutive nodes, growing the node arrays if necessary.
+	 *
+	 * @param n the number of nodes to allocate
+	 * @return the number of the first allocated node
+	 */
+	private int allocate(int n) {
+		if (this.size + n > this.childMask.length) {
+			int capacity = Math.max(this.size + n, this.childMask.length * 2);
+			this.childMask = Arrays.copyOf(this.childMask, capacity);
+			this.firstChild = Arrays.copyOf(this.firstChild, capacity);
+		}
+		int first = this.size;
+		this.size += n;
+		return first;
+	}
+
+	/**
+	 * Returns the number of nodes in this trie.
+	 *
+	 * @return the number of nodes in this trie
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the child of a node for the specified letter.
+	 *
+	 * @param node a node of this trie
+	 * @param c    a lower-case letter
+	 * @return the child of the node for the letter, or -1 if there is none
+	 */
+	public int child(int node, char c) {
+		int letter = c - 'a';
+		if (letter < 0 || letter >= 26) {
+			return -1;
+		}
+		int mask = this.childMask[node];
+		int bit = 1 << letter;
+		if ((mask & bit) == 0) {
+			return -1;
+		}
+		return this.firstChild[node] + Integer.bitCount(mask & (bit - 1));
+	}
+
+	/**
+	 * Returns the node reached by following the letters of a string from a node.
+	 *
+	 * @param node a node of this trie
+	 * @param s    a string of lower-case letters
+	 * @return the node reached, or -1 if the path leaves the trie
+	 */
+	public int walk(int node, String s) {
+		for (int i = 0; i < s.length() && node >= 0; i++) {
+			node = this.child(node, s.charAt(i));
+		}
+		return node;
+	}
+
+	/**
+	 * Returns true if the path to the specified node spells a word.
+	 *
+	 * @param node a node of this trie
+	 * @return true if the path to the node spells a word
+	 */
+	public boolean isWord(int node) {
+		return (this.childMask[node] & WORD) != 0;
+	}
+
+	/**
+	 * Returns the number of letters on the way from the root to a node.
+	 *
+	 * @param node a node of this trie
+	 * @return the number of letters on the way to the node
+	 */
+	public int depth(int node) {
+		int[] p = this.parents();
+		int depth = 0;
+		for (; node != ROOT; node = p[node]) {
+			depth++;
+		}
+		return depth;
+	}
+
+	/**
+	 * Returns the letters on the way from the root to a node, which is the word
+	 * ending at the node if {@link #isWord(int)} is true for it.
+	 *
+	 * @param node a node of this trie
+	 * @return the letters on the way to the node
+	 */
+	public String word(int node) {
+		int[] p = this.parents();
+		char[] w = new char[this.depth(node)];
+		for (int i = w.length - 1; i >= 0; i--) {
+			int parent = p[node];
+			// the node is the n-th child of its parent, so its letter is the n-th bit
+			// of the parent's mask
+			int letters = this.childMask[parent] & ~WORD;
+			for (int n = node - this.firstChild[parent]; n > 0; n--) {
+				letters &= letters - 1;
+			}
+			w[i] = (char) ('a' + Integer.numberOfTrailingZeros(letters));
+			node = parent;
+		}
+		return new String(w);
+	}
+
+	/**
+	 * Returns the node above each node, building the array if necessary in one
+	 * pass over the children of every node.
+	 *
+	 * @return the node above each node, or -1 for the root
+	 */
+	private int[] parents() {
+		int[] p = this.parents;
+		if (p == null) {
+			synchronized (this) {
+				p = this.parents;
+				if (p == null) {
+					p = new int[this.size];
+					p[ROOT] = -1;
+					for (int node = 0; node < this.size; node++) {
+						int children = Integer.bitCount(this.childMask[node] & ~WORD);
+						for (int i = 0; i < children; i++) {
+							p[this.firstChild[node] + i] = node;
+						}
+					}
+					this.parents = p;
+				}
+			}
+		}
+		return p;
+	}
+
+	/**
+	 * Returns true if this trie holds the specified word.
+	 *
+	 * @param word a word
+	 * @return true if this trie holds the word
+	 */
+	public boolean contains(String word) {
+		int node = this.walk(ROOT, word);
+		return node >= 0 && this.isWord(node);
+	}
+
+	/**
+	 * Looks up a sorted range of words in one merged walk down this trie. Each
+	 * word starts from the node that the letters it shares with the previous word
+	 * reached, so a prefix shared by many words of the range is walked once
+	 * instead of once per word.
+	 *
+	 * @param words a sorted array of words
+	 * @param from  the index of the first word to look up
+	 * @param to    the index after the last word to look up
+	 * @param found the array in which to set {@code found[i]} to whether this
+	 *              trie holds {@code words[i]}, for every {@code i} in the range
+	 */
+	public void containsSorted(String[] words, int from, int to, boolean[] found) {
+		int[] path = new int[16];
+		path[0] = ROOT;
+		int walked = 0;
+		String previous = "";
+		for (int i = from; i < to; i++) {
+			String w = words[i];
+			int depth = 0;
+			int shared = Math.min(walked, w.length());
+			while (depth < shared && w.charAt(depth) == previous.charAt(depth)) {
+				depth++;
+			}
+			int node = path[depth];
+			while (depth < w.length()) {
+				node = this.child(node, w.charAt(depth));
+				if (node < 0) {
+					break;
+				}
+				depth++;
+				if (depth == path.length) {
+					path = Arrays.copyOf(path, 2 * depth);
+				}
+				path[depth] = node;
+			}
+			walked = depth;
+			previous = w;
+			found[i] = node >= 0 && this.isWord(node);
+		}
+	}
+
+	/**
+	 * Returns the words in this trie that can be formed from the specified
+	 * letters, using each letter at most as many times as it appears. Characters
+	 * other than {@code a} to {@code z} are ignored.
+	 *
+	 * <p>
+	 * The trie is walked depth-first while taking each letter from a count of
+	 * the letters still available, so only the prefixes that can still be formed
+	 * are visited, however many words the trie holds.
+	 *
+	 * @param letters a string of lower-case letters
+	 * @return a sorted set of the words that can be formed from the letters
+	 */
+	public SortedSet<String> wordsFormableFrom(String letters) {
+		int[] available = new int[26];
+		int availableMask = 0;
+		int total = 0;
+		for (int i = 0; i < letters.length(); i++) {
+			int c = letters.charAt(i) - 'a';
+			if (c >= 0 && c < 26) {
+				available[c]++;
+				availableMask |= 1 << c;
+				total++;
+			}
+		}
+		SortedSet<String> words = new TreeSet<String>();
+		this.formable(ROOT, available, availableMask, new char[total], 0, words);
+		return words;
+	}
+
+	/**
+	 * Adds the word ending at a node, if there is one, and continues into every
+	 * child whose letter is still available.
+	 *
+	 * @param node      the node reached
+	 * @param available the number of times each letter is still available
+	 * @param mask      a mask of the letters still available
+	 * @param path      the letters on the way to the node
+	 * @param depth     the number of letters on the way to the node
+	 * @param words     the set of words found so far
+	 */
+	private void formable(int node, int[] available, int mask, char[] path, int depth, SortedSet<String> words) {
+		int children = this.childMask[node];
+		if ((children & WORD) != 0 && depth > 0) {
+			words.add(new String(path, 0, depth));
+		}
+		for (int letters = children & mask; letters != 0; letters &= letters - 1) {
+			int c = Integer.numberOfTrailingZeros(letters);
+			int child = this.firstChild[node] + Integer.bitCount(children & ((1 << c) - 1));
+			path[depth] = (char) ('a' + c);
+			available[c]--;
+			this.formable(child, available, available[c] == 0 ? mask & ~(1 << c) : mask, path, depth + 1, words);
+			available[c]++;
+		}
+	}
+
+	/**
+	 * Returns true if some word in this trie starts with the specified prefix.
+	 *
+	 * @param prefix a prefix
+	 * @return true if some word in this trie starts with the prefix
+	 */
+	public boolean containsPrefix(String prefix) {
+		return this.walk(ROOT, prefix) >= 0;
+	}
+}